@@ -0,0 +1,366 @@
+package a4;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import a2.Interval;
+
+/**
+ * An immutable real valued function on a closed interval represented as a
+ * finite series of Chebyshev polynomials of the first kind,
+ * {@code c[0] T_0(t) + c[1] T_1(t) + ... + c[n] T_n(t)}, where {@code t} is the
+ * argument mapped linearly from the interval onto {@code [-1, 1]}.
+ *
+ * <p>
+ * Because {@code |T_i(t)| <= 1} on the interval, the Chebyshev coefficients of
+ * a smooth function decay with their index, stay small, and bound the error of
+ * truncating the series. Evaluation uses Clenshaw's recurrence, which is stable
+ * at any degree, whereas converting a high-degree series to the monomial basis
+ * of {@code Polynomial} produces large coefficients that cancel when evaluated.
+ *
+ * <p>
+ * {@link #approximate(DoubleUnaryOperator, Interval, double)} builds a series
+ * for a function to a requested accuracy by interpolating it at Chebyshev
+ * points of increasing number until the coefficients have decayed below the
+ * tolerance.
+ *
+ */
+public final class ChebyshevSeries {
+
+	/**
+	 * The highest degree that {@code approximate} tries before giving up.
+	 */
+	public static final int MAX_DEGREE = 4096;
+
+	private static final int MIN_POINTS = 16;
+
+	private final double[] c; // c.length == degree + 1
+	private final double lo, hi; // the domain
+	private final double error; // estimated approximation error, 0 if exact
+
+	/**
+	 * Initializes this series to have the specified coefficients on the specified
+	 * domain. The element at index {@code i} of {@code coeffs} is the coefficient
+	 * of {@code T_i}.
+	 *
+	 * @param domain the interval the series is defined on
+	 * @param coeffs the Chebyshev coefficients
+	 * @throws IllegalArgumentException if there are no coefficients, or the
+	 *                                  domain is not finite or has zero width
+	 */
+	public ChebyshevSeries(Interval domain, double... coeffs) {
+		this(domain.min(), domain.max(), Arrays.copyOf(coeffs, coeffs.length), 0);
+	}
+
+	private ChebyshevSeries(double lo, double hi, double[] c, double error) {
+		if (c.length == 0 || !(lo < hi) || !Double.isFinite(hi - lo)) {
+			throw new IllegalArgumentException();
+		}
+		this.lo = lo;
+		this.hi = hi;
+		this.c = c;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the degree of this series, the index of its last coefficient.
+	 *
+	 * @return the degree of this series
+	 */
+	public int degree() {
+		return c.length - 1;
+	}
+
+	/**
+	 * Returns the coefficient of {@code T_i} in this series.
+	 *
+	 * @param i the index of the coefficient
+	 * @return the coefficient of {@code T_i}
+	 * @throws IllegalArgumentException if {@code i} is not a valid index
+	 */
+	public double coeffAt(int i) {
+		if (i < 0 || i >= c.length) {
+			throw new IllegalArgumentException();
+		}
+		return c[i];
+	}
+
+	/**
+	 * Returns an array containing the coefficients of this series.
+	 *
+	 * @return an array containing the coefficients of this series
+	 */
+	public double[] getCoeffs() {
+		return Arrays.copyOf(c, c.length);
+	}
+
+	/**
+	 * Returns the interval this series is defined on.
+	 *
+	 * @return the domain of this series
+	 */
+	public Interval domain() {
+		return new Interval(lo, hi);
+	}
+
+	/**
+	 * Returns an estimate of the largest absolute difference between this series
+	 * and the function it was built from by {@code approximate}, or zero for a
+	 * series constructed from coefficients or from a {@code Polynomial}. The
+	 * estimate is the sum of the magnitudes of the coefficients that were
+	 * dropped, and does not include rounding error in evaluating the series.
+	 *
+	 * @return the estimated approximation error
+	 */
+	public double error() {
+		return error;
+	}
+
+	/**
+	 * Evaluates this series at {@code x} using Clenshaw's recurrence. Values of
+	 * {@code x} outside of the domain are evaluated by extending the series, which
+	 * quickly loses accuracy.
+	 *
+	 * @param x the value to evaluate this series at
+	 * @return the value of this series at {@code x}
+	 */
+	public double at(double x) {
+		double t = this.map(x);
+		double t2 = 2 * t;
+		double b1 = 0, b2 = 0;
+		for (int k = c.length - 1; k >= 1; k--) {
+			double b = c[k] + t2 * b1 - b2;
+			b2 = b1;
+			b1 = b;
+		}
+		return c[0] + t * b1 - b2;
+	}
+
+	/**
+	 * Maps {@code x} from the domain onto {@code [-1, 1]}.
+	 */
+	private double map(double x) {
+		return (2 * x - lo - hi) / (hi - lo);
+	}
+
+	/**
+	 * Evaluates this series at every value in {@code xs}, storing the values in
+	 * {@code out}. {@code out} may be the same array as {@code xs}. The points
+	 * are evaluated four at a time so that the independent recurrences overlap;
+	 * the result for each point is identical to {@link #at(double)}.
+	 *
+	 * @param xs  the values to evaluate this series at
+	 * @param out the array to store the values in
+	 * @throws IllegalArgumentException if {@code out.length < xs.length}
+	 */
+	public void at(double[] xs, double[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException();
+		}
+		double[] c = this.c;
+		int n = c.length - 1;
+		int i = 0;
+		for (; i + 4 <= xs.length; i += 4) {
+			double t0 = this.map(xs[i]), t1 = this.map(xs[i + 1]), t2 = this.map(xs[i + 2]), t3 = this.map(xs[i + 3]);
+			double u0 = 2 * t0, u1 = 2 * t1, u2 = 2 * t2, u3 = 2 * t3;
+			double a0 = 0, a1 = 0, a2 = 0, a3 = 0; // b[k + 1]
+			double b0 = 0, b1 = 0, b2 = 0, b3 = 0; // b[k + 2]
+			for (int k = n; k >= 1; k--) {
+				double ck = c[k];
+				double s0 = ck + u0 * a0 - b0;
+				double s1 = ck + u1 * a1 - b1;
+				double s2 = ck + u2 * a2 - b2;
+				double s3 = ck + u3 * a3 - b3;
+				b0 = a0;
+				b1 = a1;
+				b2 = a2;
+				b3 = a3;
+				a0 = s0;
+				a1 = s1;
+				a2 = s2;
+				a3 = s3;
+			}
+			out[i] = c[0] + t0 * a0 - b0;
+			out[i + 1] = c[0] + t1 * a1 - b1;
+			out[i + 2] = c[0] + t2 * a2 - b2;
+			out[i + 3] = c[0] + t3 * a3 - b3;
+		}
+		for (; i < xs.length; i++) {
+			out[i] = this.at(xs[i]);
+		}
+	}
+
+	/**
+	 * Returns the Chebyshev series on {@code domain} equal to {@code p}. The
+	 * series has the same degree as {@code p}.
+	 *
+	 * @param p      the polynomial to convert
+	 * @param domain the interval to define the series on
+	 * @return the Chebyshev series equal to {@code p}
+	 * @throws IllegalArgumentException if the domain is not finite or has zero
+	 *                                  width
+	 */
+	public static ChebyshevSeries fromPolynomial(Polynomial p, Interval domain) {
+		double lo = domain.min(), hi = domain.max();
+		double mid = 0.5 * (lo + hi), half = 0.5 * (hi - lo);
+		double[] a = p.coeffs();
+		int n = p.degree();
+		// Horner's method in the Chebyshev basis: s = s * x + a[k], where
+		// x = mid + half * t and t * T_j = (T_{j-1} + T_{j+1}) / 2, T_0 * t = T_1
+		double[] s = new double[n + 1];
+		double[] tmp = new double[n + 1];
+		s[0] = a[n];
+		for (int k = n - 1, len = 1; k >= 0; k--, len++) {
+			Arrays.fill(tmp, 0, len + 1, 0);
+			for (int j = 0; j < len; j++) {
+				double v = half * s[j];
+				if (j == 0) {
+					tmp[1] += v;
+				} else {
+					tmp[j - 1] += 0.5 * v;
+					tmp[j + 1] += 0.5 * v;
+				}
+				tmp[j] += mid * s[j];
+			}
+			tmp[0] += a[k];
+			double[] swap = s;
+			s = tmp;
+			tmp = swap;
+		}
+		return new ChebyshevSeries(lo, hi, s, 0);
+	}
+
+	/**
+	 * Returns this series as a {@code Polynomial} in the monomial basis. Expect
+	 * the coefficients, and the accuracy of evaluating the result, to degrade
+	 * rapidly beyond degree 20 or so.
+	 *
+	 * @return a polynomial equal to this series
+	 */
+	public Polynomial toPolynomial() {
+		int n = c.length - 1;
+		// p = sum c[k] T_k(t), accumulated in powers of t using
+		// T_{k+1} = 2 t T_k - T_{k-1}
+		double[] p = new double[n + 1];
+		double[] prev = new double[n + 1]; // T_{k-1}, starting with T_0
+		double[] cur = new double[n + 1]; // T_k, starting with T_1
+		double[] next = new double[n + 1];
+		prev[0] = 1;
+		p[0] = c[0];
+		if (n >= 1) {
+			cur[1] = 1;
+			p[1] = c[1];
+		}
+		for (int k = 1; k < n; k++) {
+			next[0] = -prev[0];
+			for (int i = 1; i <= k + 1; i++) {
+				next[i] = 2 * cur[i - 1] - prev[i];
+			}
+			for (int i = 0; i <= k + 1; i++) {
+				p[i] += c[k + 1] * next[i];
+			}
+			double[] swap = prev;
+			prev = cur;
+			cur = next;
+			next = swap;
+		}
+		// substitute t = alpha x + beta by Horner's method in powers of x
+		double alpha = 2 / (hi - lo), beta = -(lo + hi) / (hi - lo);
+		double[] q = new double[n + 1];
+		q[0] = p[n];
+		for (int k = n - 1, len = 1; k >= 0; k--, len++) {
+			for (int i = len; i >= 1; i--) {
+				q[i] = alpha * q[i - 1] + beta * q[i];
+			}
+			q[0] = beta * q[0] + p[k];
+		}
+		return Polynomial.trimmed(q);
+	}
+
+	/**
+	 * Returns a Chebyshev series that approximates {@code f} on {@code domain}
+	 * to within about {@code tolerance} in absolute value.
+	 *
+	 * <p>
+	 * {@code f} is interpolated at 16, 32, 64, ... Chebyshev points until the
+	 * coefficients of the upper half of the interpolant sum to less than a
+	 * quarter of the tolerance; the series is then truncated after the last
+	 * coefficient whose removal would exceed half of the tolerance, and the sum
+	 * of the dropped coefficients is reported by {@link #error()}. This test can
+	 * be fooled by functions with features too narrow for the first samples to
+	 * see.
+	 *
+	 * @param f         the function to approximate, evaluated only inside the
+	 *                  domain
+	 * @param domain    the interval to approximate {@code f} on
+	 * @param tolerance the absolute accuracy required
+	 * @return an approximation of {@code f}
+	 * @throws IllegalArgumentException if {@code tolerance} is not positive, the
+	 *                                  domain is not finite or has zero width,
+	 *                                  {@code f} returns a value that is not
+	 *                                  finite, or no series of degree up to
+	 *                                  {@code MAX_DEGREE} is accurate enough
+	 */
+	public static ChebyshevSeries approximate(DoubleUnaryOperator f, Interval domain, double tolerance) {
+		if (!(tolerance > 0)) {
+			throw new IllegalArgumentException("Tolerance must be positive.");
+		}
+		double lo = domain.min(), hi = domain.max();
+		if (!(lo < hi) || !Double.isFinite(hi - lo)) {
+			throw new IllegalArgumentException();
+		}
+		double mid = 0.5 * (lo + hi), half = 0.5 * (hi - lo);
+		for (int n = MIN_POINTS; n <= MAX_DEGREE + 1; n *= 2) {
+			double[] c = interpolate(f, mid, half, n);
+			double upper = 0;
+			for (int k = n / 2; k < n; k++) {
+				upper += Math.abs(c[k]);
+			}
+			if (upper < tolerance / 4) {
+				int m = n;
+				double dropped = 0;
+				while (m > 1 && dropped + Math.abs(c[m - 1]) <= tolerance / 2) {
+					dropped += Math.abs(c[--m]);
+				}
+				return new ChebyshevSeries(lo, hi, Arrays.copyOf(c, m), dropped);
+			}
+		}
+		throw new IllegalArgumentException("No series of degree up to " + MAX_DEGREE + " is accurate enough.");
+	}
+
+	/**
+	 * Returns the coefficients of the polynomial of degree {@code n - 1} that
+	 * interpolates {@code f} at the {@code n} Chebyshev points of the first kind
+	 * {@code mid + half cos(pi (j + 1/2) / n)}, computed by a direct cosine
+	 * transform with a table of cosines.
+	 */
+	private static double[] interpolate(DoubleUnaryOperator f, double mid, double half, int n) {
+		// cos(pi k (2j + 1) / (2n)) = table[k (2j + 1) mod 4n]
+		double[] table = new double[4 * n];
+		for (int i = 0; i < 4 * n; i++) {
+			table[i] = Math.cos(Math.PI * i / (2 * n));
+		}
+		double[] v = new double[n];
+		for (int j = 0; j < n; j++) {
+			double y = f.applyAsDouble(mid + half * table[2 * j + 1]);
+			if (!Double.isFinite(y)) {
+				throw new IllegalArgumentException("Function value is not finite: " + y);
+			}
+			v[j] = y;
+		}
+		double[] c = new double[n];
+		for (int k = 0; k < n; k++) {
+			double sum = 0;
+			int step = 2 * k, idx = k, mask = 4 * n;
+			for (int j = 0; j < n; j++) {
+				sum += v[j] * table[idx];
+				idx += step;
+				if (idx >= mask) {
+					idx -= mask;
+				}
+			}
+			c[k] = (k == 0 ? 1.0 : 2.0) / n * sum;
+		}
+		return c;
+	}
+}
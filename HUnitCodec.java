@@ -0,0 +1,365 @@
+package a2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A compressed file format for {@code HUnitVolume} objects.
+ *
+ * <p>
+ * Every slice of a volume is stored as an independently decodable block, and
+ * the file starts with an index of the block offsets so that any slice can be
+ * read without decoding the slices before it. A file has the following layout,
+ * with all numbers stored little-endian:
+ *
+ * <ul>
+ * <li>the magic number {@code 0x31565548} ("HUV1")
+ * <li>the dimensions {@code nx}, {@code ny} and {@code nz} as {@code int}s
+ * <li>{@code nz + 1} {@code long} file offsets; slice {@code z} is stored from
+ * offset {@code z} up to offset {@code z + 1}
+ * <li>the slice blocks
+ * </ul>
+ *
+ * <p>
+ * A block starts with a mode byte. In {@code PREDICTED} mode each voxel is
+ * predicted from its left, upper and upper-left neighbours (the median edge
+ * detector of LOCO-I), and the zigzag-encoded prediction residuals are written
+ * as byte tokens:
+ *
+ * <ul>
+ * <li>{@code 0xxxxxxx}: a residual from {@code 0} to {@code 127}
+ * <li>{@code 10nnnnnn}: a run of {@code n + 2} zero residuals
+ * <li>{@code 110rrrrr rrrrrrrr}: a residual from {@code 0} to {@code 8191}
+ * </ul>
+ *
+ * <p>
+ * A slice whose residuals do not compress is stored in {@code PACKED} mode
+ * instead: two 12-bit values offset by {@code -MIN_VALUE} in every three bytes.
+ * No block is ever larger than the packed form, which is 25% smaller than raw
+ * 16-bit storage.
+ *
+ */
+public class HUnitCodec {
+
+	private static final int MAGIC = 0x31565548;
+	private static final int HEADER = 16;
+	private static final byte PREDICTED = 0;
+	private static final byte PACKED = 1;
+
+	private final int nx;
+	private final int ny;
+	private final int nz;
+	private final ByteBuffer buf;
+	private static final ThreadLocal<byte[]> BLOCK = ThreadLocal.withInitial(() -> new byte[0]);
+
+	private HUnitCodec(ByteBuffer buf) throws IOException {
+		this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+		if (buf.capacity() < HEADER || buf.getInt(0) != MAGIC) {
+			throw new IOException("Not a compressed HU volume.");
+		}
+		this.nx = buf.getInt(4);
+		this.ny = buf.getInt(8);
+		this.nz = buf.getInt(12);
+		if (nx <= 0 || ny <= 0 || nz <= 0 || buf.capacity() < HEADER + 8L * (nz + 1)
+				|| offset(nz) != buf.capacity()) {
+			throw new IOException("Corrupt compressed HU volume header.");
+		}
+	}
+
+	/**
+	 * Opens the compressed volume stored in the specified file. The file is
+	 * memory-mapped, so opening does not read any slices.
+	 */
+	public static HUnitCodec open(Path path) throws IOException {
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (ch.size() > Integer.MAX_VALUE) {
+				throw new IOException("Compressed HU volume is too large to map.");
+			}
+			return new HUnitCodec(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+		}
+	}
+
+	/**
+	 * Returns a reader for a compressed volume held in memory, for example the
+	 * result of {@link #encode(HUnitVolume)}.
+	 */
+	public static HUnitCodec wrap(byte[] bytes) throws IOException {
+		return new HUnitCodec(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Compresses the specified volume and writes it to the specified file,
+	 * replacing the file if it already exists.
+	 */
+	public static void write(HUnitVolume vol, Path path) throws IOException {
+		byte[] bytes = encode(vol);
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer b = ByteBuffer.wrap(bytes);
+			while (b.hasRemaining()) {
+				ch.write(b);
+			}
+		}
+	}
+
+	/**
+	 * Compresses the specified volume. The slices are compressed in parallel.
+	 */
+	public static byte[] encode(HUnitVolume vol) {
+		int nz = vol.nz();
+		byte[][] blocks = new byte[nz][];
+		IntStream.range(0, nz).parallel().forEach(z -> blocks[z] = encodeSlice(vol, z));
+
+		long len = HEADER + 8L * (nz + 1);
+		for (byte[] b : blocks) {
+			len += b.length;
+		}
+		if (len > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Compressed volume is too large.");
+		}
+		ByteBuffer out = ByteBuffer.allocate((int) len).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(MAGIC).putInt(vol.nx()).putInt(vol.ny()).putInt(nz);
+		long off = HEADER + 8L * (nz + 1);
+		for (byte[] b : blocks) {
+			out.putLong(off);
+			off += b.length;
+		}
+		out.putLong(off);
+		for (byte[] b : blocks) {
+			out.put(b);
+		}
+		return out.array();
+	}
+
+	/**
+	 * Returns the number of voxels along the x axis.
+	 */
+	public int nx() {
+		return nx;
+	}
+
+	/**
+	 * Returns the number of voxels along the y axis.
+	 */
+	public int ny() {
+		return ny;
+	}
+
+	/**
+	 * Returns the number of slices.
+	 */
+	public int nz() {
+		return nz;
+	}
+
+	/**
+	 * Decodes slice {@code z} into {@code dst}, which must have room for
+	 * {@code nx() * ny()} values.
+	 */
+	public void readSlice(int z, short[] dst) {
+		if (z < 0 || z >= nz) {
+			throw new IllegalArgumentException("Slice out of bounds of the volume: " + z);
+		}
+		if (dst.length < nx * ny) {
+			throw new IllegalArgumentException("Slice array is too short.");
+		}
+		decodeSlice(z, dst, 0);
+	}
+
+	/**
+	 * Decodes every slice into a new volume. The slices are decoded in parallel.
+	 */
+	public HUnitVolume read() {
+		HUnitVolume vol = new HUnitVolume(nx, ny, nz);
+		short[] data = vol.data();
+		IntStream.range(0, nz).parallel().forEach(z -> decodeSlice(z, data, z * nx * ny));
+		return vol;
+	}
+
+	private long offset(int z) {
+		return buf.getLong(HEADER + 8 * z);
+	}
+
+	private static byte[] encodeSlice(HUnitVolume vol, int z) {
+		int nx = vol.nx(), ny = vol.ny(), n = nx * ny;
+		short[] data = vol.data();
+		int base = z * n;
+		int packed = packedLength(n);
+		// a PREDICTED block is abandoned as soon as it grows past the PACKED size
+		byte[] out = new byte[packed];
+		int pos = 1;
+		int run = 0;
+		for (int i = 0, x = 0; i < n && pos < packed; i++, x = x + 1 == nx ? 0 : x + 1) {
+			int u = zigzag(data[base + i] - predict(data, base, i, x, nx));
+			if (u == 0) {
+				run++;
+				continue;
+			}
+			if (run > 0) {
+				pos = putRun(out, pos, run);
+				run = 0;
+			}
+			if (pos + 2 > packed) {
+				pos = packed;
+				break;
+			}
+			if (u < 0x80) {
+				out[pos++] = (byte) u;
+			} else {
+				out[pos++] = (byte) (0xC0 | (u >>> 8));
+				out[pos++] = (byte) u;
+			}
+		}
+		if (run > 0 && pos < packed) {
+			pos = putRun(out, pos, run);
+		}
+		if (pos < packed) {
+			out[0] = PREDICTED;
+			return Arrays.copyOf(out, pos);
+		}
+
+		out[0] = PACKED;
+		pos = 1;
+		for (int i = 0; i < n; i += 2) {
+			int a = data[base + i] - HUnitVolume.MIN_VALUE;
+			int b = i + 1 < n ? data[base + i + 1] - HUnitVolume.MIN_VALUE : 0;
+			out[pos++] = (byte) a;
+			out[pos++] = (byte) ((a >>> 8) | (b << 4));
+			out[pos++] = (byte) (b >>> 4);
+		}
+		return out;
+	}
+
+	/**
+	 * Writes zero-run tokens for {@code run} zero residuals into {@code out}
+	 * starting at {@code pos}, returning the position after the tokens or
+	 * {@code out.length} if they do not fit.
+	 */
+	private static int putRun(byte[] out, int pos, int run) {
+		while (run > 0) {
+			if (pos >= out.length) {
+				return out.length;
+			}
+			if (run == 1) {
+				out[pos++] = 0;
+				run = 0;
+			} else {
+				int r = Math.min(run, 65);
+				out[pos++] = (byte) (0x80 | (r - 2));
+				run -= r;
+			}
+		}
+		return pos;
+	}
+
+	private void decodeSlice(int z, short[] dst, int base) {
+		int n = nx * ny;
+		int pos = (int) offset(z);
+		int end = (int) offset(z + 1);
+		if (pos < HEADER || end > buf.capacity() || pos >= end) {
+			throw new IllegalArgumentException("Corrupt slice block: " + z);
+		}
+		byte mode = buf.get(pos++);
+		if (mode == PACKED) {
+			if (end - pos != packedLength(n) - 1) {
+				throw new IllegalArgumentException("Corrupt slice block: " + z);
+			}
+			for (int i = 0; i < n; i += 2) {
+				int b0 = buf.get(pos++) & 0xFF, b1 = buf.get(pos++) & 0xFF, b2 = buf.get(pos++) & 0xFF;
+				dst[base + i] = (short) ((b0 | (b1 & 0x0F) << 8) + HUnitVolume.MIN_VALUE);
+				if (i + 1 < n) {
+					dst[base + i + 1] = (short) ((b1 >>> 4 | b2 << 4) + HUnitVolume.MIN_VALUE);
+				}
+			}
+			return;
+		}
+		if (mode != PREDICTED) {
+			throw new IllegalArgumentException("Corrupt slice block: " + z);
+		}
+		byte[] in = block(pos, end);
+		int len = end - pos;
+		int p = 0;
+		int zeros = 0;
+		for (int i = 0, x = 0; i < n; i++, x = x + 1 == nx ? 0 : x + 1) {
+			int u;
+			if (zeros > 0) {
+				zeros--;
+				u = 0;
+			} else {
+				if (p >= len) {
+					throw new IllegalArgumentException("Corrupt slice block: " + z);
+				}
+				int b = in[p++] & 0xFF;
+				if (b < 0x80) {
+					u = b;
+				} else if (b < 0xC0) {
+					zeros = (b & 0x3F) + 1;
+					u = 0;
+				} else {
+					if (b >= 0xE0 || p >= len) {
+						throw new IllegalArgumentException("Corrupt slice block: " + z);
+					}
+					u = (b & 0x1F) << 8 | (in[p++] & 0xFF);
+				}
+			}
+			int v = predict(dst, base, i, x, nx) + ((u >>> 1) ^ -(u & 1));
+			if (v < HUnitVolume.MIN_VALUE || v > HUnitVolume.MAX_VALUE) {
+				throw new IllegalArgumentException("Corrupt slice block: " + z);
+			}
+			dst[base + i] = (short) v;
+		}
+		if (zeros > 0 || p != len) {
+			throw new IllegalArgumentException("Corrupt slice block: " + z);
+		}
+	}
+
+	/**
+	 * Copies the bytes of the file from {@code from} up to {@code to} into the
+	 * calling thread's block buffer and returns the buffer.
+	 */
+	private byte[] block(int from, int to) {
+		byte[] b = BLOCK.get();
+		if (b.length < to - from) {
+			b = new byte[to - from];
+			BLOCK.set(b);
+		}
+		buf.duplicate().position(from).get(b, 0, to - from);
+		return b;
+	}
+
+	/**
+	 * Returns the predicted value of voxel {@code i}, in column {@code x}, of the
+	 * slice starting at {@code s[base]}, using only voxels before it.
+	 */
+	private static int predict(short[] s, int base, int i, int x, int nx) {
+		if (i < nx) {
+			return x == 0 ? HUnitVolume.MIN_VALUE : s[base + i - 1];
+		}
+		int b = s[base + i - nx];
+		if (x == 0) {
+			return b;
+		}
+		int a = s[base + i - 1];
+		int c = s[base + i - nx - 1];
+		// the median of a, b and a + b - c, computed without branches
+		return Math.max(Math.min(a, b), Math.min(Math.max(a, b), a + b - c));
+	}
+
+	private static int zigzag(int e) {
+		return (e << 1) ^ (e >> 31);
+	}
+
+	/**
+	 * Returns the length of a {@code PACKED} block of {@code n} voxels, including
+	 * the mode byte.
+	 */
+	private static int packedLength(int n) {
+		return 1 + 3 * ((n + 1) / 2);
+	}
+}
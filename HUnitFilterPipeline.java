@@ -0,0 +1,430 @@
+package a2;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A denoising pipeline for {@code HUnitVolume} objects. Each filter splits the
+ * volume into cache-sized 3D tiles, copies every tile together with a halo of
+ * neighbouring voxels into a per-thread scratch buffer, and filters the tiles
+ * in parallel on a fork/join pool.
+ *
+ * <p>
+ * Voxels outside of the volume are treated as copies of the nearest voxel on
+ * the boundary of the volume. Filtered values are rounded to the nearest
+ * integer and clamped to the interval {@code -1024} to {@code 3071} when they
+ * are written to the output volume.
+ *
+ * <p>
+ * The output volume is supplied by the caller so that the same buffer can be
+ * reused across calls; it must have the same dimensions as the input volume and
+ * must not be the input volume.
+ *
+ */
+public class HUnitFilterPipeline {
+
+	private static final int DEFAULT_TILE_X = 32;
+	private static final int DEFAULT_TILE_Y = 32;
+	private static final int DEFAULT_TILE_Z = 16;
+	private static final int LEVELS = HUnitVolume.MAX_VALUE - HUnitVolume.MIN_VALUE + 1; // 4096
+	private static final int COARSE = 64; // fine histogram bins per coarse bin
+
+	private final ForkJoinPool pool;
+	private final int tileX;
+	private final int tileY;
+	private final int tileZ;
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	/**
+	 * Initializes this pipeline to use the common fork/join pool and the default
+	 * tile size.
+	 */
+	public HUnitFilterPipeline() {
+		this(ForkJoinPool.commonPool(), DEFAULT_TILE_X, DEFAULT_TILE_Y, DEFAULT_TILE_Z);
+	}
+
+	/**
+	 * Initializes this pipeline to use the specified fork/join pool and tile size.
+	 */
+	public HUnitFilterPipeline(ForkJoinPool pool, int tileX, int tileY, int tileZ) {
+		if (tileX <= 0 || tileY <= 0 || tileZ <= 0) {
+			throw new IllegalArgumentException("Tile dimensions must be positive.");
+		}
+		this.pool = pool;
+		this.tileX = tileX;
+		this.tileY = tileY;
+		this.tileZ = tileZ;
+	}
+
+	/**
+	 * Filters {@code src} with a Gaussian of standard deviation {@code sigma}
+	 * voxels, writing the result to {@code dst} and returning {@code dst}. The
+	 * Gaussian is applied as three separable passes along x, y and z, truncated at
+	 * three standard deviations.
+	 */
+	public HUnitVolume gaussian(HUnitVolume src, double sigma, HUnitVolume dst) {
+		if (!(sigma > 0)) {
+			throw new IllegalArgumentException("sigma must be positive.");
+		}
+		int r = (int) Math.ceil(3 * sigma);
+		float[] g = new float[2 * r + 1];
+		double total = 0;
+		for (int t = -r; t <= r; t++) {
+			total += Math.exp(-(t * t) / (2 * sigma * sigma));
+		}
+		for (int t = -r; t <= r; t++) {
+			g[t + r] = (float) (Math.exp(-(t * t) / (2 * sigma * sigma)) / total);
+		}
+		return run(src, dst, r, (in, s, tile) -> gaussianTile(in, s, tile, g, r));
+	}
+
+	/**
+	 * Filters {@code src} with a median over the cube of {@code (2r+1)^3} voxels
+	 * centred on each voxel, writing the result to {@code dst} and returning
+	 * {@code dst}.
+	 *
+	 * <p>
+	 * The window slides along x maintaining a two-level histogram of the 4096
+	 * possible values, so each step costs {@code O(r^2)} histogram updates rather
+	 * than a sort of the whole window.
+	 */
+	public HUnitVolume median(HUnitVolume src, int r, HUnitVolume dst) {
+		if (r < 0) {
+			throw new IllegalArgumentException("radius must not be negative.");
+		}
+		return run(src, dst, r, (in, s, tile) -> medianTile(in, s, tile, r));
+	}
+
+	/**
+	 * Filters {@code src} with a bilateral filter, writing the result to
+	 * {@code dst} and returning {@code dst}. {@code sigmaSpatial} is measured in
+	 * voxels and {@code sigmaRange} in Hounsfield units; the spatial window is
+	 * truncated at two spatial standard deviations.
+	 */
+	public HUnitVolume bilateral(HUnitVolume src, double sigmaSpatial, double sigmaRange, HUnitVolume dst) {
+		if (!(sigmaSpatial > 0) || !(sigmaRange > 0)) {
+			throw new IllegalArgumentException("sigmas must be positive.");
+		}
+		int r = (int) Math.ceil(2 * sigmaSpatial);
+		int w = 2 * r + 1;
+		float[] spatial = new float[w * w * w];
+		for (int dz = -r; dz <= r; dz++) {
+			for (int dy = -r; dy <= r; dy++) {
+				for (int dx = -r; dx <= r; dx++) {
+					double d2 = dx * dx + dy * dy + dz * dz;
+					spatial[((dz + r) * w + dy + r) * w + dx + r] = (float) Math
+							.exp(-d2 / (2 * sigmaSpatial * sigmaSpatial));
+				}
+			}
+		}
+		// the range weight only depends on the difference of two values, of which
+		// there are only LEVELS possibilities
+		float[] range = new float[LEVELS];
+		for (int d = 0; d < LEVELS; d++) {
+			range[d] = (float) Math.exp(-((double) d * d) / (2 * sigmaRange * sigmaRange));
+		}
+		return run(src, dst, r, (in, s, tile) -> bilateralTile(in, s, tile, spatial, range, r));
+	}
+
+	/**
+	 * Filters one tile. {@code in} holds the tile and its halo, with values offset
+	 * by {@code -MIN_VALUE} so that they lie in {@code 0} to {@code 4095}.
+	 */
+	private interface TileKernel {
+		void apply(int[] in, Scratch s, Tile tile);
+	}
+
+	/**
+	 * The position and size of a tile, the halo width, and the output volume.
+	 */
+	private static final class Tile {
+		int x0, y0, z0; // first voxel of the tile
+		int w, h, d; // size of the tile
+		int r; // halo width
+		int hw, hh; // row and plane width of the halo buffer
+		short[] out;
+		int nx, ny;
+
+		int in(int i, int j, int k) {
+			return (k * hh + j) * hw + i;
+		}
+
+		void write(int i, int j, int k, float v) {
+			out[x0 + i + nx * (y0 + j + ny * (z0 + k))] = (short) HUnitVolume
+					.clamp(Math.round(v) + HUnitVolume.MIN_VALUE);
+		}
+	}
+
+	/**
+	 * Scratch buffers owned by one worker thread and reused across tiles and
+	 * calls.
+	 */
+	private static final class Scratch {
+		int[] halo = new int[0];
+		float[] f1 = new float[0];
+		float[] f2 = new float[0];
+		float[] row = new float[0];
+		final int[] fine = new int[LEVELS];
+		final int[] coarse = new int[LEVELS / COARSE];
+		final Tile tile = new Tile();
+
+		int[] halo(int n) {
+			if (halo.length < n) {
+				halo = new int[n];
+			}
+			return halo;
+		}
+
+		float[] f1(int n) {
+			if (f1.length < n) {
+				f1 = new float[n];
+			}
+			return f1;
+		}
+
+		float[] f2(int n) {
+			if (f2.length < n) {
+				f2 = new float[n];
+			}
+			return f2;
+		}
+
+		float[] row(int n) {
+			if (row.length < n) {
+				row = new float[n];
+			}
+			return row;
+		}
+	}
+
+	private HUnitVolume run(HUnitVolume src, HUnitVolume dst, int r, TileKernel kernel) {
+		if (dst == src) {
+			throw new IllegalArgumentException("Output volume must not be the input volume.");
+		}
+		if (dst.nx() != src.nx() || dst.ny() != src.ny() || dst.nz() != src.nz()) {
+			throw new IllegalArgumentException("Output volume dimensions do not match the input volume.");
+		}
+		int ntx = (src.nx() + tileX - 1) / tileX;
+		int nty = (src.ny() + tileY - 1) / tileY;
+		int ntz = (src.nz() + tileZ - 1) / tileZ;
+		pool.invoke(new TileTask(src, dst, r, kernel, ntx, nty, 0, ntx * nty * ntz));
+		return dst;
+	}
+
+	private final class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final HUnitVolume src;
+		private final HUnitVolume dst;
+		private final int r;
+		private final TileKernel kernel;
+		private final int ntx, nty;
+		private final int lo, hi;
+
+		TileTask(HUnitVolume src, HUnitVolume dst, int r, TileKernel kernel, int ntx, int nty, int lo, int hi) {
+			this.src = src;
+			this.dst = dst;
+			this.r = r;
+			this.kernel = kernel;
+			this.ntx = ntx;
+			this.nty = nty;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new TileTask(src, dst, r, kernel, ntx, nty, lo, mid),
+						new TileTask(src, dst, r, kernel, ntx, nty, mid, hi));
+				return;
+			}
+			Scratch s = scratch.get();
+			Tile t = s.tile;
+			t.x0 = (lo % ntx) * tileX;
+			t.y0 = ((lo / ntx) % nty) * tileY;
+			t.z0 = (lo / (ntx * nty)) * tileZ;
+			t.w = Math.min(tileX, src.nx() - t.x0);
+			t.h = Math.min(tileY, src.ny() - t.y0);
+			t.d = Math.min(tileZ, src.nz() - t.z0);
+			t.r = r;
+			t.hw = t.w + 2 * r;
+			t.hh = t.h + 2 * r;
+			t.out = dst.data();
+			t.nx = dst.nx();
+			t.ny = dst.ny();
+			kernel.apply(loadHalo(src, s, t), s, t);
+		}
+	}
+
+	/**
+	 * Copies the tile and its halo into the scratch halo buffer, replicating the
+	 * voxels on the boundary of the volume.
+	 */
+	private static int[] loadHalo(HUnitVolume src, Scratch s, Tile t) {
+		int r = t.r;
+		int hd = t.d + 2 * r;
+		int[] buf = s.halo(t.hw * t.hh * hd);
+		short[] data = src.data();
+		int nx = src.nx(), ny = src.ny(), nz = src.nz();
+		for (int k = 0; k < hd; k++) {
+			int z = clampIndex(t.z0 - r + k, nz);
+			for (int j = 0; j < t.hh; j++) {
+				int y = clampIndex(t.y0 - r + j, ny);
+				int from = nx * (y + ny * z);
+				int to = t.in(0, j, k);
+				for (int i = 0; i < t.hw; i++) {
+					buf[to + i] = data[from + clampIndex(t.x0 - r + i, nx)] - HUnitVolume.MIN_VALUE;
+				}
+			}
+		}
+		return buf;
+	}
+
+	private static int clampIndex(int i, int n) {
+		return i < 0 ? 0 : (i >= n ? n - 1 : i);
+	}
+
+	private static void gaussianTile(int[] in, Scratch s, Tile t, float[] g, int r) {
+		int w = t.w, h = t.h, d = t.d, hh = t.hh, hd = d + 2 * r;
+		int taps = g.length;
+
+		// x pass: halo buffer -> w * hh * hd
+		float[] fx = s.f1(w * hh * hd);
+		for (int k = 0; k < hd; k++) {
+			for (int j = 0; j < hh; j++) {
+				int from = t.in(0, j, k);
+				int to = (k * hh + j) * w;
+				for (int i = 0; i < w; i++) {
+					float acc = 0;
+					for (int q = 0; q < taps; q++) {
+						acc += g[q] * in[from + i + q];
+					}
+					fx[to + i] = acc;
+				}
+			}
+		}
+
+		// y pass: w * hh * hd -> w * h * hd
+		float[] fy = s.f2(w * h * hd);
+		for (int k = 0; k < hd; k++) {
+			for (int j = 0; j < h; j++) {
+				int to = (k * h + j) * w;
+				for (int i = 0; i < w; i++) {
+					fy[to + i] = 0;
+				}
+				for (int q = 0; q < taps; q++) {
+					int from = (k * hh + j + q) * w;
+					float gq = g[q];
+					for (int i = 0; i < w; i++) {
+						fy[to + i] += gq * fx[from + i];
+					}
+				}
+			}
+		}
+
+		// z pass: w * h * hd -> output
+		float[] row = s.row(w);
+		for (int k = 0; k < d; k++) {
+			for (int j = 0; j < h; j++) {
+				for (int i = 0; i < w; i++) {
+					row[i] = 0;
+				}
+				for (int q = 0; q < taps; q++) {
+					int from = ((k + q) * h + j) * w;
+					float gq = g[q];
+					for (int i = 0; i < w; i++) {
+						row[i] += gq * fy[from + i];
+					}
+				}
+				for (int i = 0; i < w; i++) {
+					t.write(i, j, k, row[i]);
+				}
+			}
+		}
+	}
+
+	private static void medianTile(int[] in, Scratch s, Tile t, int r) {
+		int win = 2 * r + 1;
+		int half = win * win * win / 2;
+		int[] fine = s.fine;
+		int[] coarse = s.coarse;
+		for (int k = 0; k < t.d; k++) {
+			for (int j = 0; j < t.h; j++) {
+				// the histogram is empty at the start of every row
+				for (int c = 0; c < win; c++) {
+					column(in, t, c, j, k, win, fine, coarse, 1);
+				}
+				t.write(0, j, k, median(fine, coarse, half));
+				for (int i = 1; i < t.w; i++) {
+					column(in, t, i - 1, j, k, win, fine, coarse, -1);
+					column(in, t, i + win - 1, j, k, win, fine, coarse, 1);
+					t.write(i, j, k, median(fine, coarse, half));
+				}
+				for (int c = t.w - 1; c < t.w - 1 + win; c++) {
+					column(in, t, c, j, k, win, fine, coarse, -1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds {@code delta} to the histogram counts of the {@code win * win} values
+	 * of the halo buffer at x offset {@code c} of the window for row {@code (j, k)}.
+	 */
+	private static void column(int[] in, Tile t, int c, int j, int k, int win, int[] fine, int[] coarse,
+			int delta) {
+		for (int dz = 0; dz < win; dz++) {
+			for (int dy = 0; dy < win; dy++) {
+				int v = in[t.in(c, j + dy, k + dz)];
+				fine[v] += delta;
+				coarse[v / COARSE] += delta;
+			}
+		}
+	}
+
+	/**
+	 * Returns the value with the specified zero-based rank in the histogram.
+	 */
+	private static int median(int[] fine, int[] coarse, int rank) {
+		int seen = 0;
+		int b = 0;
+		while (seen + coarse[b] <= rank) {
+			seen += coarse[b];
+			b++;
+		}
+		int v = b * COARSE;
+		while (seen + fine[v] <= rank) {
+			seen += fine[v];
+			v++;
+		}
+		return v;
+	}
+
+	private static void bilateralTile(int[] in, Scratch s, Tile t, float[] spatial, float[] range, int r) {
+		int win = 2 * r + 1;
+		for (int k = 0; k < t.d; k++) {
+			for (int j = 0; j < t.h; j++) {
+				for (int i = 0; i < t.w; i++) {
+					int centre = in[t.in(i + r, j + r, k + r)];
+					float sum = 0;
+					float weights = 0;
+					int q = 0;
+					for (int dz = 0; dz < win; dz++) {
+						for (int dy = 0; dy < win; dy++) {
+							int from = t.in(i, j + dy, k + dz);
+							for (int dx = 0; dx < win; dx++, q++) {
+								int v = in[from + dx];
+								float wt = spatial[q] * range[Math.abs(v - centre)];
+								sum += wt * v;
+								weights += wt;
+							}
+						}
+					}
+					// the centre voxel always has weight 1, so weights > 0
+					t.write(i, j, k, sum / weights);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package a2;
+
+import java.util.stream.IntStream;
+
+/**
+ * A summed-area table (integral volume) of a {@code HUnitVolume}. After the
+ * table is built, the sum, mean and variance of the Hounsfield unit values
+ * inside any axis-aligned box of voxels can be computed in constant time.
+ *
+ * <p>
+ * A box is specified by half-open coordinate ranges, so the box
+ * {@code (x0, y0, z0, x1, y1, z1)} contains the voxels with
+ * {@code x0 <= x < x1}, {@code y0 <= y < y1} and {@code z0 <= z < z1}.
+ *
+ * <p>
+ * The table stores {@code long} prefix sums of the values and of the squared
+ * values. Because every value lies in the interval {@code -1024} to
+ * {@code 3071}, neither sum can overflow for any volume that fits in a Java
+ * array. The table uses {@code 16} bytes per voxel, eight times the size of the
+ * volume itself.
+ *
+ */
+public class HUnitIntegralVolume {
+
+	private final int nx;
+	private final int ny;
+	private final int nz;
+	private final int rowStride; // nx + 1
+	private final int planeStride; // (nx + 1) * (ny + 1)
+	private final long[] sum; // plane z holds the prefix sums of slices 0..z-1
+	private final long[] sumSq;
+	private long[] scratch; // reused by updateSlice
+
+	/**
+	 * Initializes this integral volume from the voxels of the specified volume.
+	 * Later changes to the volume are not reflected in this integral volume; use
+	 * {@link #updateSlice(int, HUnitVolume)} to apply them.
+	 */
+	public HUnitIntegralVolume(HUnitVolume vol) {
+		this.nx = vol.nx();
+		this.ny = vol.ny();
+		this.nz = vol.nz();
+		this.rowStride = nx + 1;
+		long plane = (long) rowStride * (ny + 1);
+		long len = plane * (nz + 1);
+		if (plane > Integer.MAX_VALUE || len > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Volume is too large for an integral volume.");
+		}
+		this.planeStride = (int) plane;
+		this.sum = new long[(int) len];
+		this.sumSq = new long[(int) len];
+
+		// the 2D table of each slice is independent of the others
+		short[] data = vol.data();
+		IntStream.range(0, nz).parallel()
+				.forEach(z -> {
+					int off = (z + 1) * planeStride;
+					sliceTable(data, z * vol.sliceLength(), sum, sumSq, off, off);
+				});
+
+		// accumulate along z; each plane depends on the one before it
+		for (int z = 2; z <= nz; z++) {
+			final int cur = z * planeStride;
+			final int prev = cur - planeStride;
+			IntStream.range(1, ny + 1).parallel().forEach(y -> {
+				int off = y * rowStride;
+				for (int x = 1; x <= nx; x++) {
+					sum[cur + off + x] += sum[prev + off + x];
+					sumSq[cur + off + x] += sumSq[prev + off + x];
+				}
+			});
+		}
+	}
+
+	/**
+	 * Writes the 2D summed-area tables of the values and squared values of one
+	 * slice of voxels, starting at {@code src[srcOff]}, into the planes starting at
+	 * {@code dst[dstOff]} and {@code dstSq[dstSqOff]}. Row and column zero of the
+	 * planes must already be zero.
+	 */
+	private void sliceTable(short[] src, int srcOff, long[] dst, long[] dstSq, int dstOff, int dstSqOff) {
+		for (int y = 0; y < ny; y++) {
+			long row = 0;
+			long rowSq = 0;
+			int s = srcOff + y * nx;
+			int d = dstOff + (y + 1) * rowStride + 1;
+			int dSq = dstSqOff + (y + 1) * rowStride + 1;
+			for (int x = 0; x < nx; x++) {
+				long v = src[s + x];
+				row += v;
+				rowSq += v * v;
+				dst[d + x] = dst[d - rowStride + x] + row;
+				dstSq[dSq + x] = dstSq[dSq - rowStride + x] + rowSq;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the values of slice {@code z} in this integral volume with the
+	 * values of slice {@code z} of the specified volume, which must have the same
+	 * dimensions as the volume this integral volume was built from.
+	 *
+	 * <p>
+	 * Runs in time proportional to the number of voxels in the slices from
+	 * {@code z} to the last slice, without rebuilding the tables of the other
+	 * slices.
+	 */
+	public void updateSlice(int z, HUnitVolume vol) {
+		if (vol.nx() != nx || vol.ny() != ny || vol.nz() != nz) {
+			throw new IllegalArgumentException("Volume dimensions do not match the integral volume.");
+		}
+		if (z < 0 || z >= nz) {
+			throw new IllegalArgumentException("Slice out of bounds of the volume: " + z);
+		}
+		if (scratch == null) {
+			scratch = new long[2 * planeStride];
+		}
+		final long[] delta = scratch;
+		final int deltaSq = planeStride;
+		sliceTable(vol.data(), z * vol.sliceLength(), delta, delta, 0, deltaSq);
+
+		// turn the new 2D tables into differences from the old ones
+		final int cur = (z + 1) * planeStride;
+		final int prev = z * planeStride;
+		for (int i = 0; i < planeStride; i++) {
+			delta[i] -= sum[cur + i] - sum[prev + i];
+			delta[deltaSq + i] -= sumSq[cur + i] - sumSq[prev + i];
+		}
+		IntStream.range(z + 1, nz + 1).parallel().forEach(k -> {
+			int off = k * planeStride;
+			for (int i = 0; i < planeStride; i++) {
+				sum[off + i] += delta[i];
+				sumSq[off + i] += delta[deltaSq + i];
+			}
+		});
+	}
+
+	/**
+	 * Returns the number of voxels in the specified box.
+	 */
+	public long count(int x0, int y0, int z0, int x1, int y1, int z1) {
+		checkBox(x0, y0, z0, x1, y1, z1);
+		return (long) (x1 - x0) * (y1 - y0) * (z1 - z0);
+	}
+
+	/**
+	 * Returns the sum of the values of the voxels in the specified box.
+	 */
+	public long sum(int x0, int y0, int z0, int x1, int y1, int z1) {
+		checkBox(x0, y0, z0, x1, y1, z1);
+		return boxSum(sum, x0, y0, z0, x1, y1, z1);
+	}
+
+	/**
+	 * Returns the sum of the squared values of the voxels in the specified box.
+	 */
+	public long sumOfSquares(int x0, int y0, int z0, int x1, int y1, int z1) {
+		checkBox(x0, y0, z0, x1, y1, z1);
+		return boxSum(sumSq, x0, y0, z0, x1, y1, z1);
+	}
+
+	/**
+	 * Returns the mean of the values of the voxels in the specified box, which
+	 * must not be empty.
+	 */
+	public double mean(int x0, int y0, int z0, int x1, int y1, int z1) {
+		long n = nonEmpty(x0, y0, z0, x1, y1, z1);
+		return (double) boxSum(sum, x0, y0, z0, x1, y1, z1) / n;
+	}
+
+	/**
+	 * Returns the population variance of the values of the voxels in the specified
+	 * box, which must not be empty.
+	 */
+	public double variance(int x0, int y0, int z0, int x1, int y1, int z1) {
+		long n = nonEmpty(x0, y0, z0, x1, y1, z1);
+		long s = boxSum(sum, x0, y0, z0, x1, y1, z1);
+		long s2 = boxSum(sumSq, x0, y0, z0, x1, y1, z1);
+		double var = ((double) s2 - (double) s * s / n) / n;
+		return var < 0 ? 0 : var; // guards against rounding below zero
+	}
+
+	private long boxSum(long[] t, int x0, int y0, int z0, int x1, int y1, int z1) {
+		int a0 = z0 * planeStride, a1 = z1 * planeStride;
+		int b0 = y0 * rowStride, b1 = y1 * rowStride;
+		return t[a1 + b1 + x1] - t[a1 + b1 + x0] - t[a1 + b0 + x1] + t[a1 + b0 + x0]
+				- t[a0 + b1 + x1] + t[a0 + b1 + x0] + t[a0 + b0 + x1] - t[a0 + b0 + x0];
+	}
+
+	private long nonEmpty(int x0, int y0, int z0, int x1, int y1, int z1) {
+		long n = count(x0, y0, z0, x1, y1, z1);
+		if (n == 0) {
+			throw new IllegalArgumentException("Box contains no voxels.");
+		}
+		return n;
+	}
+
+	private void checkBox(int x0, int y0, int z0, int x1, int y1, int z1) {
+		if (x0 < 0 || x0 > x1 || x1 > nx || y0 < 0 || y0 > y1 || y1 > ny || z0 < 0 || z0 > z1 || z1 > nz) {
+			throw new IllegalArgumentException("Box out of bounds of the volume.");
+		}
+	}
+}
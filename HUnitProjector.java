@@ -0,0 +1,193 @@
+package a2;
+
+import java.util.stream.IntStream;
+
+/**
+ * Computes maximum, minimum and average intensity projections of a
+ * {@code HUnitVolume} along one of its three axes.
+ *
+ * <p>
+ * A projection reduces a slab of the volume to a 2D image. The slab is the
+ * range of {@code thickness} voxels starting at {@code start} along the
+ * projection axis; projecting the whole volume uses {@code start == 0} and a
+ * thickness equal to the size of the volume along the axis. The pixels of the
+ * returned image are stored row by row:
+ *
+ * <ul>
+ * <li>{@code AXIAL} projects along z; the image is {@code nx} by {@code ny}.
+ * <li>{@code CORONAL} projects along y; the image is {@code nx} by {@code nz}.
+ * <li>{@code SAGITTAL} projects along x; the image is {@code ny} by {@code nz}.
+ * </ul>
+ *
+ * <p>
+ * Rows of the image are reduced in parallel, and every row is reduced by
+ * streaming over contiguous runs of voxels. A projector keeps its scratch
+ * buffer between calls and is not safe for use by multiple threads at once.
+ *
+ */
+public class HUnitProjector {
+
+	/**
+	 * The axis along which a projection is computed.
+	 */
+	public enum Axis {
+		AXIAL, CORONAL, SAGITTAL
+	}
+
+	/**
+	 * The reduction used to combine the voxels along the projection axis.
+	 */
+	public enum Mode {
+		MAXIMUM, MINIMUM, AVERAGE
+	}
+
+	private int[] acc = new int[0]; // sums for AVERAGE projections
+
+	/**
+	 * Projects the whole volume along the specified axis. See
+	 * {@link #project(HUnitVolume, Axis, Mode, int, int, short[])}.
+	 */
+	public short[] project(HUnitVolume vol, Axis axis, Mode mode, short[] out) {
+		return project(vol, axis, mode, 0, depth(vol, axis), out);
+	}
+
+	/**
+	 * Projects the slab of {@code thickness} voxels starting at {@code start}
+	 * along the specified axis, writing the image to {@code out} and returning
+	 * {@code out}. A new image is allocated and returned if {@code out} is
+	 * {@code null} or too small to hold the image. Averages are rounded to the
+	 * nearest integer.
+	 */
+	public short[] project(HUnitVolume vol, Axis axis, Mode mode, int start, int thickness, short[] out) {
+		int depth = depth(vol, axis);
+		if (start < 0 || thickness <= 0 || start + thickness > depth) {
+			throw new IllegalArgumentException("Slab out of bounds of the volume.");
+		}
+		int nx = vol.nx(), ny = vol.ny(), nz = vol.nz();
+		int w = axis == Axis.SAGITTAL ? ny : nx;
+		int h = axis == Axis.AXIAL ? ny : nz;
+		if (out == null || out.length < w * h) {
+			out = new short[w * h];
+		}
+		int[] sums = null;
+		if (mode == Mode.AVERAGE && axis != Axis.SAGITTAL) {
+			if (acc.length < w * h) {
+				acc = new int[w * h];
+			}
+			sums = acc;
+		}
+		final short[] img = out;
+		final int[] s = sums;
+		final short[] data = vol.data();
+		final int plane = nx * ny;
+		switch (axis) {
+		case AXIAL:
+			// image row y reduces rows y of slices start..start+thickness-1
+			IntStream.range(0, ny).parallel()
+					.forEach(y -> reduceRows(data, y * nx, plane, start, thickness, nx, mode, img, s, y * nx));
+			break;
+		case CORONAL:
+			// image row z reduces rows start..start+thickness-1 of slice z
+			IntStream.range(0, nz).parallel()
+					.forEach(z -> reduceRows(data, z * plane, nx, start, thickness, nx, mode, img, s, z * nx));
+			break;
+		case SAGITTAL:
+			// image pixel (y, z) reduces part of one row of the volume
+			IntStream.range(0, nz).parallel().forEach(z -> {
+				for (int y = 0; y < ny; y++) {
+					img[z * ny + y] = (short) reduceRun(data, z * plane + y * nx + start, thickness, mode);
+				}
+			});
+			break;
+		}
+		return img;
+	}
+
+	/**
+	 * Reduces {@code count} rows of {@code n} voxels, where row {@code i} starts at
+	 * {@code base + (start + i) * stride}, element-wise into the image row
+	 * starting at {@code img[to]}.
+	 */
+	private static void reduceRows(short[] data, int base, int stride, int start, int count, int n, Mode mode,
+			short[] img, int[] sums, int to) {
+		int from = base + start * stride;
+		if (mode == Mode.AVERAGE) {
+			for (int x = 0; x < n; x++) {
+				sums[to + x] = data[from + x];
+			}
+			for (int i = 1; i < count; i++) {
+				int row = from + i * stride;
+				for (int x = 0; x < n; x++) {
+					sums[to + x] += data[row + x];
+				}
+			}
+			for (int x = 0; x < n; x++) {
+				img[to + x] = (short) Math.round((float) sums[to + x] / count);
+			}
+			return;
+		}
+		System.arraycopy(data, from, img, to, n);
+		if (mode == Mode.MAXIMUM) {
+			for (int i = 1; i < count; i++) {
+				maxRow(data, from + i * stride, img, to, n);
+			}
+		} else {
+			for (int i = 1; i < count; i++) {
+				minRow(data, from + i * stride, img, to, n);
+			}
+		}
+	}
+
+	private static void maxRow(short[] data, int from, short[] img, int to, int n) {
+		for (int x = 0; x < n; x++) {
+			short v = data[from + x];
+			if (v > img[to + x]) {
+				img[to + x] = v;
+			}
+		}
+	}
+
+	private static void minRow(short[] data, int from, short[] img, int to, int n) {
+		for (int x = 0; x < n; x++) {
+			short v = data[from + x];
+			if (v < img[to + x]) {
+				img[to + x] = v;
+			}
+		}
+	}
+
+	/**
+	 * Reduces the {@code count} contiguous voxels starting at {@code data[from]}.
+	 */
+	private static int reduceRun(short[] data, int from, int count, Mode mode) {
+		int r = data[from];
+		switch (mode) {
+		case MAXIMUM:
+			for (int i = 1; i < count; i++) {
+				r = Math.max(r, data[from + i]);
+			}
+			return r;
+		case MINIMUM:
+			for (int i = 1; i < count; i++) {
+				r = Math.min(r, data[from + i]);
+			}
+			return r;
+		default:
+			for (int i = 1; i < count; i++) {
+				r += data[from + i];
+			}
+			return Math.round((float) r / count);
+		}
+	}
+
+	private static int depth(HUnitVolume vol, Axis axis) {
+		switch (axis) {
+		case AXIAL:
+			return vol.nz();
+		case CORONAL:
+			return vol.ny();
+		default:
+			return vol.nx();
+		}
+	}
+}
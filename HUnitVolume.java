@@ -0,0 +1,210 @@
+package a2;
+
+/**
+ * A three-dimensional volume of Hounsfield unit values stored as packed 16-bit
+ * voxels. Every voxel is guaranteed to lie in the same interval {@code -1024}
+ * to {@code 3071} that {@code HUnit} enforces, but no {@code HUnit} object is
+ * created per voxel.
+ *
+ * <p>
+ * Voxels are stored slice by slice with the x index varying fastest, so the
+ * voxel {@code (x, y, z)} is at index {@code x + nx * (y + ny * z)} of the
+ * packed array. A newly created volume is filled with the value {@code 0}
+ * (water), matching the default value of {@code HUnit}.
+ *
+ */
+public class HUnitVolume {
+
+	/**
+	 * The minimum allowable Hounsfield unit value of a voxel.
+	 */
+	public static final int MIN_VALUE = -1024;
+
+	/**
+	 * The maximum allowable Hounsfield unit value of a voxel.
+	 */
+	public static final int MAX_VALUE = 3071;
+
+	private final int nx;
+	private final int ny;
+	private final int nz;
+	private final short[] data;
+
+	/**
+	 * Initializes this volume to have the specified dimensions with every voxel
+	 * equal to {@code 0}.
+	 */
+	public HUnitVolume(int nx, int ny, int nz) {
+		this.data = new short[length(nx, ny, nz)];
+		this.nx = nx;
+		this.ny = ny;
+		this.nz = nz;
+	}
+
+	/**
+	 * Initializes this volume to have the specified dimensions and voxel values.
+	 * The values are copied, so changes to {@code voxels} are not reflected in this
+	 * volume.
+	 */
+	public HUnitVolume(int nx, int ny, int nz, short[] voxels) {
+		if (voxels.length != length(nx, ny, nz)) {
+			throw new IllegalArgumentException("Number of voxels does not match the dimensions of the volume.");
+		}
+		for (int i = 0; i < voxels.length; i++) {
+			check(voxels[i]);
+		}
+		this.data = voxels.clone();
+		this.nx = nx;
+		this.ny = ny;
+		this.nz = nz;
+	}
+
+	/**
+	 * Initializes this volume by copying the dimensions and voxel values of another
+	 * volume.
+	 */
+	public HUnitVolume(HUnitVolume other) {
+		this.data = other.data.clone();
+		this.nx = other.nx;
+		this.ny = other.ny;
+		this.nz = other.nz;
+	}
+
+	/**
+	 * Returns the number of voxels along the x axis.
+	 */
+	public int nx() {
+		return nx;
+	}
+
+	/**
+	 * Returns the number of voxels along the y axis.
+	 */
+	public int ny() {
+		return ny;
+	}
+
+	/**
+	 * Returns the number of slices (voxels along the z axis).
+	 */
+	public int nz() {
+		return nz;
+	}
+
+	/**
+	 * Returns the number of voxels in one slice of this volume.
+	 */
+	public int sliceLength() {
+		return nx * ny;
+	}
+
+	/**
+	 * Returns the value of the voxel at the specified coordinates.
+	 */
+	public int value(int x, int y, int z) {
+		return data[index(x, y, z)];
+	}
+
+	/**
+	 * Sets the value of the voxel at the specified coordinates returning the value
+	 * that was overwritten.
+	 */
+	public int value(int x, int y, int z, int value) {
+		check(value);
+		int i = index(x, y, z);
+		int ov = data[i];
+		data[i] = (short) value;
+		return (ov);
+	}
+
+	/**
+	 * Returns the voxel at the specified coordinates as a new {@code HUnit}.
+	 */
+	public HUnit get(int x, int y, int z) {
+		return new HUnit(value(x, y, z));
+	}
+
+	/**
+	 * Copies the voxels of slice {@code z} into {@code dst}, which must have room
+	 * for {@code sliceLength()} values.
+	 */
+	public void slice(int z, short[] dst) {
+		checkSlice(z);
+		System.arraycopy(data, z * sliceLength(), dst, 0, sliceLength());
+	}
+
+	/**
+	 * Replaces the voxels of slice {@code z} with the first {@code sliceLength()}
+	 * values of {@code src}. The slice is left unchanged if any of the values is
+	 * out of bounds.
+	 */
+	public void setSlice(int z, short[] src) {
+		checkSlice(z);
+		int n = sliceLength();
+		if (src.length < n) {
+			throw new IllegalArgumentException("Slice array is too short.");
+		}
+		for (int i = 0; i < n; i++) {
+			check(src[i]);
+		}
+		System.arraycopy(src, 0, data, z * n, n);
+	}
+
+	/**
+	 * Returns the packed voxel array of this volume. Callers in this package may
+	 * read and write the array directly but must keep every value within bounds.
+	 */
+	short[] data() {
+		return data;
+	}
+
+	/**
+	 * Returns the index of the voxel at the specified coordinates in the packed
+	 * voxel array.
+	 */
+	int index(int x, int y, int z) {
+		if (x < 0 || x >= nx || y < 0 || y >= ny || z < 0 || z >= nz) {
+			throw new IllegalArgumentException("Voxel (" + x + ", " + y + ", " + z + ") out of bounds of the volume");
+		}
+		return x + nx * (y + ny * z);
+	}
+
+	private void checkSlice(int z) {
+		if (z < 0 || z >= nz) {
+			throw new IllegalArgumentException("Slice out of bounds of the volume: " + z);
+		}
+	}
+
+	/**
+	 * Throws an {@code IllegalArgumentException} if {@code value} is not an
+	 * allowable Hounsfield unit value.
+	 */
+	static void check(int value) {
+		if (value < MIN_VALUE || value > MAX_VALUE) {
+			throw new IllegalArgumentException("Value out of bounds of the Interval");
+		}
+	}
+
+	/**
+	 * Returns {@code value} clamped to the allowable Hounsfield unit values.
+	 */
+	static int clamp(int value) {
+		return value < MIN_VALUE ? MIN_VALUE : (value > MAX_VALUE ? MAX_VALUE : value);
+	}
+
+	private static int length(int nx, int ny, int nz) {
+		if (nx <= 0 || ny <= 0 || nz <= 0) {
+			throw new IllegalArgumentException("Volume dimensions must be positive.");
+		}
+		try {
+			return Math.multiplyExact(Math.multiplyExact(nx, ny), nz);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("Volume has too many voxels.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return ("{" + nx + " x " + ny + " x " + nz + "}");
+	}
+}
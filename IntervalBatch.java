@@ -0,0 +1,303 @@
+package a2;
+
+/**
+ * A fixed-size batch of intervals stored as two parallel arrays of minimum and
+ * maximum values, together with element-wise interval arithmetic over whole
+ * batches.
+ *
+ * <p>
+ * Storing the bounds in primitive arrays instead of one {@code Interval}
+ * object per element lets the arithmetic run as tight loops over contiguous
+ * memory with no allocation. The static operations write their results into a
+ * caller-supplied batch, which may be one of the operands.
+ *
+ * <p>
+ * The bounds of an interval may be infinite. Products such as
+ * {@code 0 * Double.POSITIVE_INFINITY}, which are NaN in floating point, are
+ * taken to be {@code 0} as is usual in interval arithmetic, and sums such as
+ * {@code Double.NEGATIVE_INFINITY + Double.POSITIVE_INFINITY} widen the result
+ * to the whole real line.
+ *
+ * <p>
+ * Unlike an {@code Interval}, an element of a batch may also be empty; empty
+ * elements arise from the intersection of disjoint intervals or division by the
+ * zero-width interval {@code [0, 0]}. Empty elements have NaN bounds, and every
+ * operation except {@code hull} returns an empty result for an empty operand.
+ */
+public class IntervalBatch {
+
+	private final double[] lo;
+	private final double[] hi;
+
+	/**
+	 * Initializes this batch to contain {@code size} intervals equal to
+	 * {@code [0, 0]}.
+	 */
+	public IntervalBatch(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException();
+		}
+		lo = new double[size];
+		hi = new double[size];
+	}
+
+	/**
+	 * Initializes this batch by copying the minimum and maximum values of the
+	 * specified intervals.
+	 */
+	public IntervalBatch(Interval... intervals) {
+		this(intervals.length);
+		for (int i = 0; i < intervals.length; i++) {
+			lo[i] = intervals[i].min();
+			hi[i] = intervals[i].max();
+		}
+	}
+
+	/**
+	 * Initializes this batch by copying the specified minimum and maximum values.
+	 */
+	public IntervalBatch(double[] mins, double[] maxs) {
+		this(mins.length);
+		if (maxs.length != mins.length) {
+			throw new IllegalArgumentException("Arrays of bounds have different lengths.");
+		}
+		for (int i = 0; i < mins.length; i++) {
+			set(i, mins[i], maxs[i]);
+		}
+	}
+
+	/**
+	 * Returns the number of intervals in this batch.
+	 */
+	public int size() {
+		return lo.length;
+	}
+
+	/**
+	 * Returns the minimum value of interval {@code i}, or NaN if it is empty.
+	 */
+	public double min(int i) {
+		return lo[i];
+	}
+
+	/**
+	 * Returns the maximum value of interval {@code i}, or NaN if it is empty.
+	 */
+	public double max(int i) {
+		return hi[i];
+	}
+
+	/**
+	 * Returns {@code true} if interval {@code i} is empty.
+	 */
+	public boolean isEmpty(int i) {
+		return Double.isNaN(lo[i]);
+	}
+
+	/**
+	 * Returns interval {@code i} as a new {@code Interval} object.
+	 *
+	 * @throws IllegalArgumentException if interval {@code i} is empty
+	 */
+	public Interval get(int i) {
+		return new Interval(lo[i], hi[i]);
+	}
+
+	/**
+	 * Sets interval {@code i} to have the specified minimum and maximum values.
+	 */
+	public void set(int i, double min, double max) {
+		if (Double.isNaN(min) || Double.isNaN(max) || min > max) {
+			throw new IllegalArgumentException();
+		}
+		lo[i] = min;
+		hi[i] = max;
+	}
+
+	/**
+	 * Sets interval {@code i} to have the minimum and maximum values of the
+	 * specified interval.
+	 */
+	public void set(int i, Interval interval) {
+		lo[i] = interval.min();
+		hi[i] = interval.max();
+	}
+
+	/**
+	 * Sets {@code out[i]} to {@code a[i] + b[i]} for every {@code i}.
+	 */
+	public static void add(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = checkSizes(a, b, out);
+		double[] alo = a.lo, ahi = a.hi, blo = b.lo, bhi = b.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			double l = alo[i] + blo[i];
+			double h = ahi[i] + bhi[i];
+			if (l != l || h != h) {
+				// NaN from an empty operand or from adding opposite infinities
+				boolean empty = alo[i] != alo[i] || blo[i] != blo[i];
+				l = empty ? Double.NaN : (l != l ? Double.NEGATIVE_INFINITY : l);
+				h = empty ? Double.NaN : (h != h ? Double.POSITIVE_INFINITY : h);
+			}
+			olo[i] = l;
+			ohi[i] = h;
+		}
+	}
+
+	/**
+	 * Sets {@code out[i]} to {@code a[i] - b[i]} for every {@code i}.
+	 */
+	public static void sub(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = checkSizes(a, b, out);
+		double[] alo = a.lo, ahi = a.hi, blo = b.lo, bhi = b.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			double l = alo[i] - bhi[i];
+			double h = ahi[i] - blo[i];
+			if (l != l || h != h) {
+				boolean empty = alo[i] != alo[i] || blo[i] != blo[i];
+				l = empty ? Double.NaN : (l != l ? Double.NEGATIVE_INFINITY : l);
+				h = empty ? Double.NaN : (h != h ? Double.POSITIVE_INFINITY : h);
+			}
+			olo[i] = l;
+			ohi[i] = h;
+		}
+	}
+
+	/**
+	 * Sets {@code out[i]} to {@code a[i] * b[i]} for every {@code i}.
+	 */
+	public static void mul(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = checkSizes(a, b, out);
+		double[] alo = a.lo, ahi = a.hi, blo = b.lo, bhi = b.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			double al = alo[i], ah = ahi[i], bl = blo[i], bh = bhi[i];
+			if (al != al || bl != bl) {
+				olo[i] = Double.NaN;
+				ohi[i] = Double.NaN;
+				continue;
+			}
+			double p1 = times(al, bl), p2 = times(al, bh), p3 = times(ah, bl), p4 = times(ah, bh);
+			olo[i] = Math.min(Math.min(p1, p2), Math.min(p3, p4));
+			ohi[i] = Math.max(Math.max(p1, p2), Math.max(p3, p4));
+		}
+	}
+
+	/**
+	 * Sets {@code out[i]} to {@code a[i] / b[i]} for every {@code i}. The result is
+	 * the whole real line if {@code b[i]} contains zero, and empty if
+	 * {@code b[i]} is {@code [0, 0]}.
+	 */
+	public static void div(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = checkSizes(a, b, out);
+		double[] alo = a.lo, ahi = a.hi, blo = b.lo, bhi = b.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			double al = alo[i], ah = ahi[i], bl = blo[i], bh = bhi[i];
+			if (al != al || bl != bl || (bl == 0 && bh == 0)) {
+				olo[i] = Double.NaN;
+				ohi[i] = Double.NaN;
+				continue;
+			}
+			if (bl <= 0 && bh >= 0) {
+				olo[i] = Double.NEGATIVE_INFINITY;
+				ohi[i] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			// a * [1 / bh, 1 / bl], where 1 / infinity is a signed zero
+			double rl = 1 / bh, rh = 1 / bl;
+			double p1 = times(al, rl), p2 = times(al, rh), p3 = times(ah, rl), p4 = times(ah, rh);
+			olo[i] = Math.min(Math.min(p1, p2), Math.min(p3, p4));
+			ohi[i] = Math.max(Math.max(p1, p2), Math.max(p3, p4));
+		}
+	}
+
+	/**
+	 * Sets {@code out[i]} to {@code s * a[i]} for every {@code i}.
+	 */
+	public static void scale(IntervalBatch a, double s, IntervalBatch out) {
+		if (Double.isNaN(s)) {
+			throw new IllegalArgumentException();
+		}
+		int n = checkSizes(a, a, out);
+		double[] alo = a.lo, ahi = a.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			double al = alo[i], ah = ahi[i];
+			if (al != al) {
+				olo[i] = Double.NaN; // empty intervals stay empty
+				ohi[i] = Double.NaN;
+				continue;
+			}
+			double l = times(s, s >= 0 ? al : ah);
+			double h = times(s, s >= 0 ? ah : al);
+			olo[i] = l;
+			ohi[i] = h;
+		}
+	}
+
+	/**
+	 * Sets {@code out[i]} to the smallest interval containing both {@code a[i]}
+	 * and {@code b[i]} for every {@code i}. The hull of an empty interval and
+	 * another interval is the other interval.
+	 */
+	public static void hull(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = checkSizes(a, b, out);
+		double[] alo = a.lo, ahi = a.hi, blo = b.lo, bhi = b.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			double al = alo[i], ah = ahi[i], bl = blo[i], bh = bhi[i];
+			if (al != al) {
+				olo[i] = bl;
+				ohi[i] = bh;
+			} else if (bl != bl) {
+				olo[i] = al;
+				ohi[i] = ah;
+			} else {
+				olo[i] = Math.min(al, bl);
+				ohi[i] = Math.max(ah, bh);
+			}
+		}
+	}
+
+	/**
+	 * Sets {@code out[i]} to the intersection of {@code a[i]} and {@code b[i]} for
+	 * every {@code i}. The intersection of disjoint intervals is empty.
+	 */
+	public static void intersect(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = checkSizes(a, b, out);
+		double[] alo = a.lo, ahi = a.hi, blo = b.lo, bhi = b.hi, olo = out.lo, ohi = out.hi;
+		for (int i = 0; i < n; i++) {
+			// Math.max and Math.min return NaN for an empty operand
+			double l = Math.max(alo[i], blo[i]);
+			double h = Math.min(ahi[i], bhi[i]);
+			boolean empty = !(l <= h);
+			olo[i] = empty ? Double.NaN : l;
+			ohi[i] = empty ? Double.NaN : h;
+		}
+	}
+
+	/**
+	 * Returns {@code x * y}, except that the product of zero and an infinity is
+	 * zero. Neither argument may be NaN.
+	 */
+	private static double times(double x, double y) {
+		double p = x * y;
+		return p != p ? 0 : p;
+	}
+
+	private static int checkSizes(IntervalBatch a, IntervalBatch b, IntervalBatch out) {
+		int n = a.size();
+		if (b.size() != n || out.size() != n) {
+			throw new IllegalArgumentException("Interval batches have different sizes.");
+		}
+		return n;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("[");
+		for (int i = 0; i < lo.length; i++) {
+			if (i > 0) {
+				s.append(", ");
+			}
+			s.append(isEmpty(i) ? "[]" : "[" + Double.toString(lo[i]) + ", " + Double.toString(hi[i]) + "]");
+		}
+		return s.append("]").toString();
+	}
+}
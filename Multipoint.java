@@ -0,0 +1,374 @@
+package a4;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Evaluation of a polynomial at many points, and interpolation of a polynomial
+ * through many points.
+ *
+ * <p>
+ * For large inputs both operations use a subproduct tree: the leaves of the
+ * tree are the products of {@code (x - x_i)} over small groups of points, and
+ * every other node is the product of its two children. Evaluation reduces the
+ * polynomial modulo the nodes on the way down the tree, and interpolation
+ * combines Lagrange weights on the way up, so that both cost a logarithmic
+ * number of fast multiplications and divisions instead of {@code O(n^2)}
+ * operations. Small inputs use Horner's method and Newton's divided
+ * differences, which are faster below the thresholds measured by
+ * {@link #main(String[])}.
+ *
+ * <p>
+ * In floating point the subproduct tree is only accurate while the
+ * coefficients of its nodes stay small. The monic polynomial with {@code n}
+ * roots of magnitude up to {@code r} can have coefficients as large as
+ * {@code (1 + r)^n}, and remainders by such polynomials cancel catastrophically,
+ * so the tree is used only when the largest coefficient of its root is at most
+ * {@code 2^20}; otherwise the quadratic algorithms are used regardless of size.
+ * In practice this means the fast algorithms apply to large sets of points
+ * clustered within about {@code 14 / n} of the origin.
+ *
+ * <p>
+ * Interpolation in the monomial basis is badly conditioned for any set of many
+ * real points, whichever algorithm is used: the condition number of the
+ * Vandermonde matrix grows exponentially with the number of points, so the
+ * coefficients returned for more than a few dozen points can be inaccurate and
+ * the residuals should be checked before relying on them. Interpolation falls
+ * back to divided differences when the tree's Lagrange weights are not finite.
+ *
+ */
+public final class Multipoint {
+
+	/**
+	 * The number of points at or above which {@code evaluate} uses the subproduct
+	 * tree, provided the polynomial also has at least this degree.
+	 */
+	static final int EVALUATE_THRESHOLD = 12288;
+
+	/**
+	 * The number of points at or above which {@code interpolate} uses the
+	 * subproduct tree.
+	 */
+	static final int INTERPOLATE_THRESHOLD = 10240;
+
+	/**
+	 * The largest coefficient of the root of a subproduct tree for which the tree
+	 * is used.
+	 */
+	private static final double GROWTH_LIMIT = 0x1p20;
+
+	/**
+	 * The number of points in each leaf of a subproduct tree.
+	 */
+	private static final int LEAF = 64;
+
+	private Multipoint() {
+	}
+
+	/**
+	 * Evaluates {@code p} at every value in {@code xs}, storing {@code p(xs[i])} in
+	 * {@code out[i]}.
+	 *
+	 * @param p   the polynomial to evaluate
+	 * @param xs  the values to evaluate {@code p} at
+	 * @param out the array to store the values of {@code p} in
+	 * @throws IllegalArgumentException if {@code out.length < xs.length}
+	 */
+	public static void evaluate(Polynomial p, double[] xs, double[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException();
+		}
+		if (xs.length >= EVALUATE_THRESHOLD && p.degree() >= EVALUATE_THRESHOLD) {
+			Tree t = new Tree(xs);
+			if (t.isAccurate()) {
+				t.evaluate(p.coeffs(), p.degree() + 1, out);
+				return;
+			}
+		}
+		p.at(xs, out);
+	}
+
+	/**
+	 * Returns the polynomial of lowest degree that passes through the points
+	 * {@code (xs[i], ys[i])}. The degree of the returned polynomial is at most
+	 * {@code xs.length - 1}.
+	 *
+	 * @param xs the x values of the points, which must be distinct
+	 * @param ys the y values of the points
+	 * @return the interpolating polynomial
+	 * @throws IllegalArgumentException if the arrays are empty, have different
+	 *                                  lengths, or {@code xs} contains a repeated
+	 *                                  value
+	 */
+	public static Polynomial interpolate(double[] xs, double[] ys) {
+		if (xs.length == 0 || xs.length != ys.length) {
+			throw new IllegalArgumentException();
+		}
+		if (xs.length >= INTERPOLATE_THRESHOLD) {
+			Tree t = new Tree(xs);
+			if (t.isAccurate()) {
+				double[] w = t.weights(ys);
+				if (allFinite(w)) {
+					return t.combine(w);
+				}
+			}
+		}
+		return interpolateNewton(xs, ys);
+	}
+
+	private static boolean allFinite(double[] a) {
+		for (double v : a) {
+			if (!Double.isFinite(v)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Interpolation by Newton's divided differences, expanded into the monomial
+	 * basis. Takes {@code O(n^2)} time.
+	 */
+	static Polynomial interpolateNewton(double[] xs, double[] ys) {
+		int n = xs.length;
+		double[] d = ys.clone();
+		for (int k = 1; k < n; k++) {
+			for (int i = n - 1; i >= k; i--) {
+				double dx = xs[i] - xs[i - k];
+				if (dx == 0) {
+					throw new IllegalArgumentException("repeated x value: " + xs[i]);
+				}
+				d[i] = (d[i] - d[i - 1]) / dx;
+			}
+		}
+		// p = d[n-1]; p = p * (x - xs[k]) + d[k] for k = n-2 .. 0
+		double[] c = new double[n];
+		c[0] = d[n - 1];
+		for (int k = n - 2; k >= 0; k--) {
+			int len = n - 1 - k; // number of coefficients of p so far
+			for (int j = len; j > 0; j--) {
+				c[j] = c[j - 1] - xs[k] * c[j];
+			}
+			c[0] = d[k] - xs[k] * c[0];
+		}
+		return Polynomial.trimmed(c);
+	}
+
+	/**
+	 * A subproduct tree over a fixed array of points.
+	 */
+	static final class Tree {
+		private final double[] xs;
+
+		/**
+		 * levels[0] holds the leaf polynomials; levels[l][j] is the product of
+		 * levels[l-1][2j] and levels[l-1][2j+1] (or a copy of levels[l-1][2j] if
+		 * there is no second child); the last level holds only the root.
+		 */
+		private final double[][][] levels;
+
+		Tree(double[] xs) {
+			this.xs = xs;
+			int leaves = (xs.length + LEAF - 1) / LEAF;
+			int height = 1;
+			for (int n = leaves; n > 1; n = (n + 1) / 2) {
+				height++;
+			}
+			levels = new double[height][][];
+			levels[0] = new double[leaves][];
+			for (int k = 0; k < leaves; k++) {
+				levels[0][k] = PolyMath.fromRoots(xs, k * LEAF, Math.min((k + 1) * LEAF, xs.length));
+			}
+			for (int l = 1; l < height; l++) {
+				double[][] below = levels[l - 1];
+				double[][] level = new double[(below.length + 1) / 2][];
+				for (int j = 0; j < level.length; j++) {
+					if (2 * j + 1 < below.length) {
+						double[] a = below[2 * j], b = below[2 * j + 1];
+						level[j] = PolyMath.multiply(a, a.length, b, b.length);
+					} else {
+						level[j] = below[2 * j];
+					}
+				}
+				levels[l] = level;
+			}
+		}
+
+		/**
+		 * Returns {@code true} if the coefficients of the root of this tree are
+		 * small enough for remainders by the nodes of this tree to be accurate.
+		 */
+		boolean isAccurate() {
+			double[] root = levels[levels.length - 1][0];
+			double max = 0;
+			for (double c : root) {
+				max = Math.max(max, Math.abs(c));
+			}
+			return max <= GROWTH_LIMIT; // false for NaN or infinite coefficients
+		}
+
+		/**
+		 * Stores the value at {@code xs[i]} of the polynomial with the first
+		 * {@code nf} coefficients of {@code f} in {@code out[i]}.
+		 */
+		void evaluate(double[] f, int nf, double[] out) {
+			double[][] rems = { reduce(f, nf, levels[levels.length - 1][0]) };
+			for (int l = levels.length - 1; l > 0; l--) {
+				double[][] below = levels[l - 1];
+				double[][] next = new double[below.length][];
+				for (int j = 0; j < rems.length; j++) {
+					next[2 * j] = reduce(rems[j], rems[j].length, below[2 * j]);
+					if (2 * j + 1 < below.length) {
+						next[2 * j + 1] = reduce(rems[j], rems[j].length, below[2 * j + 1]);
+					}
+				}
+				rems = next;
+			}
+			for (int k = 0; k < rems.length; k++) {
+				double[] r = rems[k];
+				int to = Math.min((k + 1) * LEAF, xs.length);
+				for (int i = k * LEAF; i < to; i++) {
+					double x = xs[i];
+					double sum = r[r.length - 1];
+					for (int j = r.length - 2; j >= 0; j--) {
+						sum = sum * x + r[j];
+					}
+					out[i] = sum;
+				}
+			}
+		}
+
+		/**
+		 * Returns the remainder of the polynomial with the first {@code nf}
+		 * coefficients of {@code f} divided by the monic polynomial {@code m}, or
+		 * those coefficients themselves if the degree is already lower.
+		 */
+		private static double[] reduce(double[] f, int nf, double[] m) {
+			if (nf < m.length) {
+				return nf == f.length ? f : Arrays.copyOf(f, nf);
+			}
+			return PolyMath.divide(f, nf, m, m.length)[1];
+		}
+
+		/**
+		 * Returns the polynomial through {@code (xs[i], ys[i])}, without checking
+		 * that the Lagrange weights are finite.
+		 */
+		Polynomial interpolate(double[] ys) {
+			return combine(weights(ys));
+		}
+
+		/**
+		 * Returns the Lagrange weights {@code ys[i] / M'(xs[i])}, where {@code M} is
+		 * the root of the tree. A weight is infinite or NaN if {@code xs} contains a
+		 * repeated value, or if {@code M'(xs[i])} underflows or is inaccurate.
+		 */
+		double[] weights(double[] ys) {
+			int n = xs.length;
+			double[] root = levels[levels.length - 1][0];
+			double[] dm = new double[n];
+			for (int i = 1; i <= n; i++) {
+				dm[i - 1] = root[i] * i;
+			}
+			double[] w = new double[n];
+			evaluate(dm, n, w);
+			for (int i = 0; i < n; i++) {
+				w[i] = ys[i] / w[i];
+			}
+			return w;
+		}
+
+		/**
+		 * Returns {@code sum of w[i] M / (x - xs[i])}, combining the sums over the
+		 * leaves on the way up the tree.
+		 */
+		Polynomial combine(double[] w) {
+			int n = xs.length;
+			// leaves: sum of w_i M_leaf / (x - x_i) by synthetic division
+			double[][] sums = new double[levels[0].length][];
+			for (int k = 0; k < sums.length; k++) {
+				double[] m = levels[0][k];
+				int deg = m.length - 1;
+				double[] s = new double[deg];
+				int to = Math.min((k + 1) * LEAF, n);
+				for (int i = k * LEAF; i < to; i++) {
+					double q = m[deg];
+					s[deg - 1] += w[i] * q;
+					for (int j = deg - 1; j > 0; j--) {
+						q = m[j] + xs[i] * q;
+						s[j - 1] += w[i] * q;
+					}
+				}
+				sums[k] = s;
+			}
+
+			// r = r_left * M_right + r_right * M_left
+			for (int l = 1; l < levels.length; l++) {
+				double[][] below = levels[l - 1];
+				double[][] next = new double[levels[l].length][];
+				for (int j = 0; j < next.length; j++) {
+					if (2 * j + 1 < below.length) {
+						double[] a = sums[2 * j], b = sums[2 * j + 1];
+						double[] ma = below[2 * j], mb = below[2 * j + 1];
+						double[] r = PolyMath.multiply(a, a.length, mb, mb.length);
+						double[] t = PolyMath.multiply(b, b.length, ma, ma.length);
+						for (int k = 0; k < r.length; k++) {
+							r[k] += t[k];
+						}
+						next[j] = r;
+					} else {
+						next[j] = sums[2 * j];
+					}
+				}
+				sums = next;
+			}
+			return Polynomial.trimmed(sums[0]);
+		}
+	}
+
+	/**
+	 * Times Horner's method against the subproduct tree for evaluation, and
+	 * Newton's divided differences against the subproduct tree for
+	 * interpolation, at increasing numbers of points. Each line reports the
+	 * number of points and the times in milliseconds; the thresholds in this
+	 * class are where the tree starts to win.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		Random rng = new Random(1);
+		System.out.println("points   horner     tree   newton    tree");
+		for (int n = 256; n <= 16384; n *= 2) {
+			double[] xs = new double[n];
+			double[] c = new double[n];
+			for (int i = 0; i < n; i++) {
+				// Chebyshev points scaled so that the tree passes isAccurate()
+				xs[i] = 8.0 / n * Math.cos(Math.PI * (i + 0.5) / n);
+				c[i] = rng.nextDouble() - 0.5;
+			}
+			c[n - 1] = 1;
+			Polynomial p = new Polynomial(c);
+			double[] ys = new double[n];
+			double[] out = new double[n];
+			p.at(xs, ys);
+			double horner = time(() -> p.at(xs, out));
+			double tree = time(() -> new Tree(xs).evaluate(p.coeffs(), xs.length, out));
+			double newton = time(() -> interpolateNewton(xs, ys));
+			double itree = time(() -> new Tree(xs).interpolate(ys));
+			System.out.printf("%6d %8.2f %8.2f %8.2f %8.2f%n", n, horner, tree, newton, itree);
+		}
+	}
+
+	/**
+	 * Returns the fastest of several runs of {@code task} in milliseconds.
+	 */
+	private static double time(Runnable task) {
+		long best = Long.MAX_VALUE;
+		for (int rep = 0; rep < 5; rep++) {
+			long start = System.nanoTime();
+			task.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best / 1e6;
+	}
+}
@@ -0,0 +1,443 @@
+package a4;
+
+import java.util.Arrays;
+
+/**
+ * An immutable real valued function that is a polynomial on each of a sequence
+ * of adjacent intervals, such as a spline.
+ *
+ * <p>
+ * The function is defined by {@code m + 1} strictly increasing breakpoints
+ * {@code x[0] < x[1] < ... < x[m]} and one polynomial per segment
+ * {@code [x[j], x[j + 1])}. Every segment has the same number of coefficients
+ * (its order), and the coefficients of all segments are stored in one
+ * contiguous array, segment by segment. Each segment is stored in local
+ * coordinates: on segment {@code j} the function is
+ * {@code sum of c[j][i] (x - x[j])^i}, which keeps the coefficients small and
+ * the evaluation accurate far from the origin. Points before {@code x[0]} and
+ * at or after {@code x[m]} are evaluated by extending the first and last
+ * segments.
+ *
+ * <p>
+ * Segments are found by binary search, or in constant time when the
+ * breakpoints are uniformly spaced. Batches of sorted points are evaluated
+ * with a cursor that only moves forward.
+ *
+ */
+public final class PiecewisePolynomial {
+
+	private final double[] x; // breakpoints, strictly increasing
+	private final int k; // order, the number of coefficients per segment
+	private final double[] c; // c[j * k + i] is coefficient i of segment j
+	private final double[] cum; // cum[j] is the integral from x[0] to x[j]
+	private final double invH; // 1 / spacing if the breakpoints are uniform, else 0
+
+	/**
+	 * Initializes this function to have the specified breakpoints and segment
+	 * coefficients. Coefficient {@code i} of segment {@code j}, the coefficient of
+	 * {@code (x - breaks[j])^i}, is {@code coeffs[j * order + i]}. The arrays are
+	 * copied.
+	 *
+	 * @param breaks the breakpoints, of which there must be at least two
+	 * @param coeffs the coefficients of the segments in local coordinates
+	 * @param order  the number of coefficients per segment
+	 * @throws IllegalArgumentException if there are fewer than two breakpoints,
+	 *                                  the breakpoints are not strictly increasing
+	 *                                  and finite, {@code order < 1}, or
+	 *                                  {@code coeffs.length} is not
+	 *                                  {@code order} times the number of segments
+	 */
+	public PiecewisePolynomial(double[] breaks, double[] coeffs, int order) {
+		this(breaks.clone(), coeffs.clone(), order, true);
+	}
+
+	/**
+	 * Initializes this function to use the specified arrays without copying them.
+	 */
+	private PiecewisePolynomial(double[] breaks, double[] coeffs, int order, boolean check) {
+		int m = breaks.length - 1;
+		if (check) {
+			if (m < 1 || order < 1 || coeffs.length != (long) m * order) {
+				throw new IllegalArgumentException();
+			}
+			for (int j = 0; j <= m; j++) {
+				if (!Double.isFinite(breaks[j]) || (j > 0 && !(breaks[j] > breaks[j - 1]))) {
+					throw new IllegalArgumentException("Breakpoints must be finite and strictly increasing.");
+				}
+			}
+		}
+		this.x = breaks;
+		this.k = order;
+		this.c = coeffs;
+
+		double h = (breaks[m] - breaks[0]) / m;
+		boolean uniform = true;
+		for (int j = 1; j < m && uniform; j++) {
+			uniform = Math.abs(breaks[j] - (breaks[0] + j * h)) <= 1e-9 * h;
+		}
+		// the index computed from the spacing is only a first guess, corrected
+		// against the breakpoints, so near-uniform spacing is enough
+		this.invH = uniform ? 1 / h : 0;
+
+		this.cum = new double[m + 1];
+		for (int j = 0; j < m; j++) {
+			cum[j + 1] = cum[j] + this.integral(j, breaks[j + 1] - breaks[j]);
+		}
+	}
+
+	/**
+	 * Returns a piecewise polynomial with the specified breakpoints that is equal
+	 * to {@code segments[j]} on segment {@code j}. The segments are polynomials
+	 * in {@code x}, not in local coordinates; they are shifted to local
+	 * coordinates here. The order of the result is one more than the highest
+	 * degree of the segments.
+	 *
+	 * @param breaks   the breakpoints
+	 * @param segments the polynomial on each segment
+	 * @return the piecewise polynomial
+	 * @throws IllegalArgumentException if {@code segments.length} is not one less
+	 *                                  than {@code breaks.length}, or the
+	 *                                  breakpoints are invalid
+	 */
+	public static PiecewisePolynomial of(double[] breaks, Polynomial... segments) {
+		int m = segments.length;
+		if (breaks.length != m + 1) {
+			throw new IllegalArgumentException();
+		}
+		int order = 1;
+		for (Polynomial p : segments) {
+			order = Math.max(order, p.degree() + 1);
+		}
+		double[] coeffs = new double[m * order];
+		for (int j = 0; j < m; j++) {
+			int off = j * order;
+			int n = segments[j].degree() + 1;
+			System.arraycopy(segments[j].coeffs(), 0, coeffs, off, n);
+			// Taylor shift p(t + x[j]) by repeated synthetic division
+			double s = breaks[j];
+			for (int i = 0; i < n - 1; i++) {
+				for (int q = n - 2; q >= i; q--) {
+					coeffs[off + q] += s * coeffs[off + q + 1];
+				}
+			}
+		}
+		return new PiecewisePolynomial(breaks.clone(), coeffs, order, true);
+	}
+
+	/**
+	 * Returns the natural cubic spline through the points {@code (xs[i], ys[i])}:
+	 * the piecewise cubic with breakpoints {@code xs} that has continuous first and
+	 * second derivatives and a second derivative of zero at both ends. Through two
+	 * points the spline is the straight line.
+	 *
+	 * @param xs the x values of the points, strictly increasing
+	 * @param ys the y values of the points
+	 * @return the natural cubic spline through the points
+	 * @throws IllegalArgumentException if there are fewer than two points, the
+	 *                                  arrays have different lengths, or
+	 *                                  {@code xs} is not strictly increasing
+	 */
+	public static PiecewisePolynomial naturalSpline(double[] xs, double[] ys) {
+		int n = xs.length;
+		if (n < 2 || ys.length != n) {
+			throw new IllegalArgumentException();
+		}
+		int m = n - 1;
+		double[] h = new double[m];
+		for (int j = 0; j < m; j++) {
+			h[j] = xs[j + 1] - xs[j];
+			if (!(h[j] > 0)) {
+				throw new IllegalArgumentException("Breakpoints must be finite and strictly increasing.");
+			}
+		}
+
+		// second derivatives s[1..m-1] from the tridiagonal system
+		// h[j-1] s[j-1] + 2 (h[j-1] + h[j]) s[j] + h[j] s[j+1] = 6 (d[j] - d[j-1]),
+		// where d[j] is the slope of segment j, solved by forward elimination and
+		// back substitution with s[0] = s[m] = 0
+		double[] s = new double[n];
+		double[] diag = new double[n];
+		for (int j = 1; j < m; j++) {
+			double rhs = 6 * ((ys[j + 1] - ys[j]) / h[j] - (ys[j] - ys[j - 1]) / h[j - 1]);
+			double d = 2 * (h[j - 1] + h[j]);
+			if (j > 1) {
+				double w = h[j - 1] / diag[j - 1];
+				d -= w * h[j - 1];
+				rhs -= w * s[j - 1];
+			}
+			diag[j] = d;
+			s[j] = rhs;
+		}
+		for (int j = m - 1; j >= 1; j--) {
+			s[j] = (s[j] - (j < m - 1 ? h[j] * s[j + 1] : 0)) / diag[j];
+		}
+
+		double[] coeffs = new double[4 * m];
+		for (int j = 0; j < m; j++) {
+			int off = 4 * j;
+			coeffs[off] = ys[j];
+			coeffs[off + 1] = (ys[j + 1] - ys[j]) / h[j] - h[j] * (2 * s[j] + s[j + 1]) / 6;
+			coeffs[off + 2] = s[j] / 2;
+			coeffs[off + 3] = (s[j + 1] - s[j]) / (6 * h[j]);
+		}
+		return new PiecewisePolynomial(xs.clone(), coeffs, 4, true);
+	}
+
+	/**
+	 * Returns the number of segments.
+	 *
+	 * @return the number of segments
+	 */
+	public int segments() {
+		return x.length - 1;
+	}
+
+	/**
+	 * Returns the number of coefficients of each segment, one more than the
+	 * highest degree of the segments.
+	 *
+	 * @return the order of this piecewise polynomial
+	 */
+	public int order() {
+		return k;
+	}
+
+	/**
+	 * Returns breakpoint {@code i}.
+	 *
+	 * @param i the index of the breakpoint, from {@code 0} to {@code segments()}
+	 * @return breakpoint {@code i}
+	 */
+	public double breakpoint(int i) {
+		return x[i];
+	}
+
+	/**
+	 * Returns the coefficient of {@code (x - breakpoint(j))^i} on segment
+	 * {@code j}.
+	 *
+	 * @param j the segment
+	 * @param i the power of the local coordinate
+	 * @return the coefficient
+	 * @throws IllegalArgumentException if {@code j} or {@code i} is out of range
+	 */
+	public double coeffAt(int j, int i) {
+		if (j < 0 || j >= x.length - 1 || i < 0 || i >= k) {
+			throw new IllegalArgumentException();
+		}
+		return c[j * k + i];
+	}
+
+	/**
+	 * Returns the index of the segment that contains {@code v}: the largest
+	 * {@code j < segments()} with {@code breakpoint(j) <= v}, or {@code 0} if
+	 * {@code v} is before the first breakpoint or is NaN.
+	 *
+	 * @param v a value
+	 * @return the index of the segment used to evaluate this function at
+	 *         {@code v}
+	 */
+	public int segment(double v) {
+		double[] x = this.x;
+		int m = x.length - 1;
+		if (!(v >= x[1])) {
+			return 0;
+		}
+		if (v >= x[m - 1]) {
+			return m - 1;
+		}
+		if (invH > 0) {
+			// x[1] <= v < x[m - 1], so the guess only needs local correction
+			int j = (int) ((v - x[0]) * invH);
+			j = Math.max(1, Math.min(j, m - 2));
+			while (v < x[j]) {
+				j--;
+			}
+			while (v >= x[j + 1]) {
+				j++;
+			}
+			return j;
+		}
+		// invariant: x[lo] <= v < x[hi]
+		int lo = 1, hi = m - 1;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (v >= x[mid]) {
+				lo = mid;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Evaluates this function at {@code v}.
+	 *
+	 * @param v the value to evaluate this function at
+	 * @return the value of this function at {@code v}
+	 */
+	public double at(double v) {
+		int j = segment(v);
+		return this.horner(j, v - x[j]);
+	}
+
+	private double horner(int j, double t) {
+		double[] c = this.c;
+		int off = j * k;
+		double sum = c[off + k - 1];
+		for (int i = k - 2; i >= 0; i--) {
+			sum = sum * t + c[off + i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Evaluates this function at every value in {@code xs}, in any order, storing
+	 * the values in {@code out}. {@code out} may be the same array as {@code xs}.
+	 *
+	 * @param xs  the values to evaluate this function at
+	 * @param out the array to store the values in
+	 * @throws IllegalArgumentException if {@code out.length < xs.length}
+	 */
+	public void at(double[] xs, double[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < xs.length; i++) {
+			out[i] = this.at(xs[i]);
+		}
+	}
+
+	/**
+	 * Evaluates this function at every value in {@code xs}, which must be in
+	 * non-decreasing order, storing the values in {@code out}. The segment is
+	 * found once for the first value and then advanced with a cursor, so the
+	 * whole batch costs one search plus a comparison per value or breakpoint
+	 * passed. {@code out} may be the same array as {@code xs}.
+	 *
+	 * @param xs  the values to evaluate this function at, in non-decreasing order
+	 * @param out the array to store the values in
+	 * @throws IllegalArgumentException if {@code out.length < xs.length} or
+	 *                                  {@code xs} is not in non-decreasing order
+	 */
+	public void atSorted(double[] xs, double[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException();
+		}
+		if (xs.length == 0) {
+			return;
+		}
+		double[] x = this.x;
+		int last = x.length - 2; // index of the last segment
+		int j = segment(xs[0]);
+		double prev = xs[0];
+		for (int i = 0; i < xs.length; i++) {
+			double v = xs[i];
+			if (v < prev) {
+				throw new IllegalArgumentException("Values are not sorted.");
+			}
+			prev = v;
+			while (j < last && v >= x[j + 1]) {
+				j++;
+			}
+			out[i] = this.horner(j, v - x[j]);
+		}
+	}
+
+	/**
+	 * Returns the derivative of this function, segment by segment. The order of
+	 * the derivative is one less than the order of this function, except that
+	 * the derivative of a piecewise constant function is the zero function of
+	 * order one.
+	 *
+	 * @return the derivative of this function
+	 */
+	public PiecewisePolynomial derivative() {
+		int m = x.length - 1;
+		int order = Math.max(1, k - 1);
+		double[] d = new double[m * order];
+		if (k > 1) {
+			for (int j = 0; j < m; j++) {
+				for (int i = 1; i < k; i++) {
+					d[j * order + i - 1] = c[j * k + i] * i;
+				}
+			}
+		}
+		return new PiecewisePolynomial(x, d, order, false);
+	}
+
+	/**
+	 * Returns the antiderivative of this function that is zero at the first
+	 * breakpoint and continuous across the breakpoints. Its order is one more
+	 * than the order of this function.
+	 *
+	 * @return the antiderivative of this function
+	 */
+	public PiecewisePolynomial antiderivative() {
+		int m = x.length - 1;
+		int order = k + 1;
+		double[] f = new double[m * order];
+		for (int j = 0; j < m; j++) {
+			f[j * order] = cum[j];
+			for (int i = 0; i < k; i++) {
+				f[j * order + i + 1] = c[j * k + i] / (i + 1);
+			}
+		}
+		return new PiecewisePolynomial(x, f, order, false);
+	}
+
+	/**
+	 * Returns the integral of segment {@code j} from its start to {@code t} past
+	 * its start.
+	 */
+	private double integral(int j, double t) {
+		int off = j * k;
+		double sum = c[off + k - 1] / k;
+		for (int i = k - 2; i >= 0; i--) {
+			sum = sum * t + c[off + i] / (i + 1);
+		}
+		return sum * t;
+	}
+
+	/**
+	 * Returns the integral of this function from {@code x[0]} to {@code v}.
+	 */
+	private double integralTo(double v) {
+		int j = segment(v);
+		return cum[j] + this.integral(j, v - x[j]);
+	}
+
+	/**
+	 * Returns the definite integral of this function from {@code x1} to
+	 * {@code x2}, across as many segments as the interval spans. If
+	 * {@code x1 > x2} is {@code true}, then the values of {@code x1} and
+	 * {@code x2} are swapped before computing the definite integral.
+	 *
+	 * <p>
+	 * The integrals over whole segments are summed once when this function is
+	 * created, so each call costs two segment lookups and two evaluations.
+	 *
+	 * @param x1 a limit of the definite integral
+	 * @param x2 the other limit of the definite integral
+	 * @return the definite integral evaluated at the specified limits
+	 */
+	public double integrate(double x1, double x2) {
+		if (x1 > x2) {
+			double temp = x2;
+			x2 = x1;
+			x1 = temp;
+		}
+		return this.integralTo(x2) - this.integralTo(x1);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int j = 0; j < x.length - 1; j++) {
+			s.append('[').append(x[j]).append(", ").append(x[j + 1]).append("): ");
+			s.append(Arrays.toString(Arrays.copyOfRange(c, j * k, (j + 1) * k))).append('\n');
+		}
+		return s.toString();
+	}
+}
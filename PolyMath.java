@@ -0,0 +1,431 @@
+package a4;
+
+import java.util.Arrays;
+
+/**
+ * Arithmetic kernels on coefficient arrays shared by the polynomial classes in
+ * this package. A coefficient array holds the coefficient of x raised to the
+ * power {@code i} at index {@code i}; unlike {@code Polynomial}, the kernels do
+ * not require the last coefficient to be non-zero.
+ */
+final class PolyMath {
+
+	/**
+	 * The length of the shorter operand below which schoolbook multiplication is
+	 * used, both as the top-level algorithm and as the base case of Karatsuba.
+	 * This and {@code FFT_THRESHOLD} were chosen by timing equal-length products
+	 * of 16 to 2048 coefficients with each algorithm.
+	 */
+	static final int KARATSUBA_THRESHOLD = 96;
+
+	/**
+	 * The length of the shorter operand at or above which FFT convolution is
+	 * used.
+	 */
+	static final int FFT_THRESHOLD = 384;
+
+	/**
+	 * The length of the divisor and of the quotient at or above which division
+	 * uses Newton inversion instead of long division.
+	 */
+	static final int DIVISION_THRESHOLD = 128;
+
+	private static final double EPS = Math.ulp(1.0) / 2;
+
+	/**
+	 * Slots of the per-thread scratch buffers returned by {@code scratch}.
+	 */
+	static final int KARATSUBA_PIECE = 0, KARATSUBA_PRODUCT = 1, KARATSUBA_TEMP = 2, PRODUCT = 3;
+
+	private static final ThreadLocal<double[][]> SCRATCH = ThreadLocal.withInitial(() -> new double[4][0]);
+
+	private PolyMath() {
+	}
+
+	/**
+	 * Returns the calling thread's scratch buffer for {@code slot}, grown to at
+	 * least {@code length} elements. The contents of the buffer are unspecified,
+	 * and it is overwritten by the next call on the same thread that uses the
+	 * same slot. A buffer is kept for the life of the thread at the largest size
+	 * requested.
+	 */
+	static double[] scratch(int slot, int length) {
+		double[][] buffers = SCRATCH.get();
+		double[] b = buffers[slot];
+		if (b.length < length) {
+			b = new double[Math.max(length, b.length + (b.length >> 1))];
+			buffers[slot] = b;
+		}
+		return b;
+	}
+
+	/**
+	 * Returns the coefficients of the product of the polynomials with the first
+	 * {@code na} coefficients of {@code a} and the first {@code nb} coefficients
+	 * of {@code b}. The returned array has length {@code na + nb - 1}. The
+	 * algorithm is chosen from the length of the shorter operand.
+	 */
+	static double[] multiply(double[] a, int na, double[] b, int nb) {
+		if (na > nb) {
+			return multiply(b, nb, a, na);
+		}
+		if (na < KARATSUBA_THRESHOLD) {
+			return schoolbook(a, na, b, nb);
+		} else if (na < FFT_THRESHOLD) {
+			return karatsuba(a, na, b, nb);
+		}
+		return fft(a, na, b, nb);
+	}
+
+	/**
+	 * Returns an estimate of the largest absolute error in any coefficient of
+	 * {@code multiply(a, na, b, nb)}.
+	 *
+	 * <p>
+	 * For FFT convolution the estimate is the usual bound for a floating-point
+	 * FFT convolution of length {@code N},
+	 * {@code ||a||_2 * ||b||_2 * eps * (3 log2 N + 6)}, where {@code eps} is the
+	 * unit roundoff. For the other algorithms it is
+	 * {@code ||a||_2 * ||b||_2 * eps * n}, where {@code n} is the length of the
+	 * shorter operand.
+	 */
+	static double errorBound(double[] a, int na, double[] b, int nb) {
+		double scale = norm2(a, na) * norm2(b, nb) * EPS;
+		int n = Math.min(na, nb);
+		if (n < FFT_THRESHOLD) {
+			return scale * n;
+		}
+		int logN = 32 - Integer.numberOfLeadingZeros(na + nb - 2);
+		return scale * (3 * logN + 6);
+	}
+
+	static double[] schoolbook(double[] a, int na, double[] b, int nb) {
+		double[] c = new double[na + nb - 1];
+		schoolbook(a, 0, na, b, 0, nb, c, 0);
+		return c;
+	}
+
+	/**
+	 * Adds the product of {@code a[ao .. ao+na)} and {@code b[bo .. bo+nb)} to
+	 * {@code c} starting at index {@code co}.
+	 */
+	static void schoolbook(double[] a, int ao, int na, double[] b, int bo, int nb, double[] c, int co) {
+		for (int i = 0; i < na; i++) {
+			double ai = a[ao + i];
+			if (ai == 0) {
+				continue;
+			}
+			int ci = co + i;
+			for (int j = 0; j < nb; j++) {
+				c[ci + j] += ai * b[bo + j];
+			}
+		}
+	}
+
+	/**
+	 * Karatsuba multiplication where {@code na <= nb}. The longer operand is cut
+	 * into pieces of length {@code na}, and each piece is multiplied by
+	 * {@code a} with the balanced algorithm.
+	 */
+	static double[] karatsuba(double[] a, int na, double[] b, int nb) {
+		double[] c = new double[na + nb - 1];
+		// every element of the scratch buffers is written before it is read
+		double[] piece = scratch(KARATSUBA_PIECE, na);
+		double[] prod = scratch(KARATSUBA_PRODUCT, 2 * na);
+		double[] tmp = scratch(KARATSUBA_TEMP, scratchLength(na));
+		for (int j = 0; j < nb; j += na) {
+			int len = Math.min(na, nb - j);
+			System.arraycopy(b, j, piece, 0, len);
+			for (int k = len; k < na; k++) {
+				piece[k] = 0;
+			}
+			karatsuba(a, 0, piece, 0, na, prod, 0, tmp, 0);
+			int n = Math.min(2 * na - 1, c.length - j);
+			for (int k = 0; k < n; k++) {
+				c[j + k] += prod[k];
+			}
+		}
+		return c;
+	}
+
+	private static int scratchLength(int n) {
+		// each level uses 4m <= 2n + 4 entries and recurses on m <= n / 2 + 1
+		int len = 0;
+		while (n >= KARATSUBA_THRESHOLD) {
+			int m = n - n / 2;
+			len += 4 * m;
+			n = m;
+		}
+		return len;
+	}
+
+	/**
+	 * Stores the product of {@code a[ao .. ao+n)} and {@code b[bo .. bo+n)} in
+	 * {@code c[co .. co+2n-1)}, using {@code tmp} from index {@code to} as
+	 * scratch space.
+	 */
+	private static void karatsuba(double[] a, int ao, double[] b, int bo, int n, double[] c, int co, double[] tmp,
+			int to) {
+		if (n < KARATSUBA_THRESHOLD) {
+			for (int k = 0; k < 2 * n - 1; k++) {
+				c[co + k] = 0;
+			}
+			schoolbook(a, ao, n, b, bo, n, c, co);
+			return;
+		}
+		int h = n / 2; // length of the low halves
+		int m = n - h; // length of the high halves, m >= h
+
+		// z0 = a0 * b0 and z2 = a1 * b1, side by side in c
+		karatsuba(a, ao, b, bo, h, c, co, tmp, to);
+		c[co + 2 * h - 1] = 0;
+		karatsuba(a, ao + h, b, bo + h, m, c, co + 2 * h, tmp, to);
+
+		// z1 = (a0 + a1) * (b0 + b1) - z0 - z2
+		int sa = to, sb = to + m, z1 = to + 2 * m;
+		for (int k = 0; k < m; k++) {
+			tmp[sa + k] = a[ao + h + k] + (k < h ? a[ao + k] : 0);
+			tmp[sb + k] = b[bo + h + k] + (k < h ? b[bo + k] : 0);
+		}
+		karatsuba(tmp, sa, tmp, sb, m, tmp, z1, tmp, to + 4 * m);
+		for (int k = 0; k < 2 * h - 1; k++) {
+			tmp[z1 + k] -= c[co + k];
+		}
+		for (int k = 0; k < 2 * m - 1; k++) {
+			tmp[z1 + k] -= c[co + 2 * h + k];
+		}
+		for (int k = 0; k < 2 * m - 1; k++) {
+			c[co + h + k] += tmp[z1 + k];
+		}
+	}
+
+	/**
+	 * FFT convolution. Both operands are packed into one complex sequence
+	 * {@code z = a + i s b}, so that the imaginary part of the inverse transform
+	 * of {@code Z^2} is {@code 2 s (a * b)}. The scale {@code s} balances the
+	 * norms of the two operands to minimize rounding error.
+	 */
+	static double[] fft(double[] a, int na, double[] b, int nb) {
+		int len = na + nb - 1;
+		int n = Integer.highestOneBit(len);
+		if (n < len) {
+			n <<= 1;
+		}
+		double na2 = norm2(a, na), nb2 = norm2(b, nb);
+		if (na2 == 0 || nb2 == 0) {
+			return new double[len];
+		}
+		double s = na2 / nb2;
+		double[] re = new double[n];
+		double[] im = new double[n];
+		System.arraycopy(a, 0, re, 0, na);
+		for (int k = 0; k < nb; k++) {
+			im[k] = s * b[k];
+		}
+		double[] cos = new double[n / 2];
+		double[] sin = new double[n / 2];
+		for (int k = 0; k < n / 2; k++) {
+			double t = 2 * Math.PI * k / n;
+			cos[k] = Math.cos(t);
+			sin[k] = Math.sin(t);
+		}
+		transform(re, im, cos, sin, false);
+		for (int k = 0; k < n; k++) {
+			double r = re[k], i = im[k];
+			re[k] = r * r - i * i;
+			im[k] = 2 * r * i;
+		}
+		transform(re, im, cos, sin, true);
+		double[] c = new double[len];
+		double scale = 1 / (2 * s * n);
+		for (int k = 0; k < len; k++) {
+			c[k] = im[k] * scale;
+		}
+		return c;
+	}
+
+	/**
+	 * In-place iterative radix-2 FFT of length {@code re.length}, a power of two.
+	 * The inverse transform is not normalized.
+	 */
+	private static void transform(double[] re, double[] im, double[] cos, double[] sin, boolean inverse) {
+		int n = re.length;
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				double t = re[i];
+				re[i] = re[j];
+				re[j] = t;
+				t = im[i];
+				im[i] = im[j];
+				im[j] = t;
+			}
+		}
+		double sign = inverse ? 1 : -1;
+		for (int len = 2; len <= n; len <<= 1) {
+			int half = len >> 1;
+			int step = n / len;
+			for (int i = 0; i < n; i += len) {
+				for (int k = 0; k < half; k++) {
+					double wr = cos[k * step], wi = sign * sin[k * step];
+					int p = i + k, q = p + half;
+					double xr = re[q] * wr - im[q] * wi;
+					double xi = re[q] * wi + im[q] * wr;
+					re[q] = re[p] - xr;
+					im[q] = im[p] - xi;
+					re[p] += xr;
+					im[p] += xi;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the quotient and remainder of dividing the polynomial with the first
+	 * {@code na} coefficients of {@code a} by the polynomial with the first
+	 * {@code nb} coefficients of {@code b}, whose last coefficient must be
+	 * non-zero. The quotient has length {@code max(na - nb + 1, 1)} and the
+	 * remainder has length {@code max(nb - 1, 1)}.
+	 *
+	 * <p>
+	 * Large divisions compute the reversed quotient as the reversed dividend times
+	 * the power-series inverse of the reversed divisor, which costs a constant
+	 * number of multiplications; small divisions use long division.
+	 *
+	 * @return an array holding the quotient and the remainder
+	 */
+	static double[][] divide(double[] a, int na, double[] b, int nb) {
+		int nr = Math.max(nb - 1, 1);
+		if (na < nb) {
+			double[] r = new double[nr];
+			System.arraycopy(a, 0, r, 0, na);
+			return new double[][] { new double[1], r };
+		}
+		int nq = na - nb + 1;
+		if (nq < DIVISION_THRESHOLD || nb < DIVISION_THRESHOLD) {
+			return longDivide(a, na, b, nb);
+		}
+
+		// rev(q) = rev(a) * rev(b)^-1 mod x^nq
+		double[] ra = new double[nq];
+		for (int k = 0; k < nq; k++) {
+			ra[k] = a[na - 1 - k];
+		}
+		double[] rb = new double[Math.min(nb, nq)];
+		for (int k = 0; k < rb.length; k++) {
+			rb[k] = b[nb - 1 - k];
+		}
+		double[] rq = multiply(ra, nq, inverse(rb, rb.length, nq), nq);
+		double[] q = new double[nq];
+		for (int k = 0; k < nq; k++) {
+			q[k] = rq[nq - 1 - k];
+		}
+
+		// r = a - b * q, of which only the low nb - 1 coefficients are non-zero
+		double[] bq = multiply(b, nb, q, nq);
+		double[] r = new double[nr];
+		for (int k = 0; k < nb - 1; k++) {
+			r[k] = a[k] - bq[k];
+		}
+		return new double[][] { q, r };
+	}
+
+	/**
+	 * Long division; see {@link #divide(double[], int, double[], int)}.
+	 */
+	static double[][] longDivide(double[] a, int na, double[] b, int nb) {
+		double[] r = Arrays.copyOf(a, na);
+		int nq = na - nb + 1;
+		double[] q = new double[nq];
+		double lead = b[nb - 1];
+		for (int k = nq - 1; k >= 0; k--) {
+			double t = r[k + nb - 1] / lead;
+			q[k] = t;
+			if (t != 0) {
+				for (int j = 0; j < nb - 1; j++) {
+					r[k + j] -= t * b[j];
+				}
+			}
+			r[k + nb - 1] = 0;
+		}
+		return new double[][] { q, Arrays.copyOf(r, Math.max(nb - 1, 1)) };
+	}
+
+	/**
+	 * Returns the first {@code k} coefficients of the power series inverse of the
+	 * polynomial with the first {@code nf} coefficients of {@code f}, whose first
+	 * coefficient must be non-zero. Uses the Newton iteration
+	 * {@code g <- g (2 - f g)}, which doubles the number of correct coefficients
+	 * at every step.
+	 */
+	static double[] inverse(double[] f, int nf, int k) {
+		double[] g = { 1 / f[0] };
+		int len = 1;
+		while (len < k) {
+			int next = Math.min(2 * len, k);
+			double[] fg = multiply(f, Math.min(nf, next), g, len);
+			// t = 2 - f g mod x^next, where f g = 1 mod x^len
+			double[] t = new double[next];
+			for (int j = 0; j < next && j < fg.length; j++) {
+				t[j] = -fg[j];
+			}
+			t[0] += 2;
+			double[] h = multiply(g, len, t, next);
+			g = Arrays.copyOf(h, next);
+			len = next;
+		}
+		return g;
+	}
+
+	/**
+	 * Returns the monic polynomial whose roots are {@code xs[from .. to)}.
+	 */
+	static double[] fromRoots(double[] xs, int from, int to) {
+		int n = to - from;
+		double[] m = new double[n + 1];
+		m[0] = 1;
+		for (int i = 0; i < n; i++) {
+			// multiply the i + 1 coefficients so far by (x - xs[from + i])
+			double r = xs[from + i];
+			for (int j = i + 1; j > 0; j--) {
+				m[j] = m[j - 1] - r * m[j];
+			}
+			m[0] = -r * m[0];
+		}
+		return m;
+	}
+
+	/**
+	 * Returns the Euclidean norm of the first {@code n} elements of {@code a}.
+	 */
+	static double norm2(double[] a, int n) {
+		double max = 0;
+		for (int k = 0; k < n; k++) {
+			max = Math.max(max, Math.abs(a[k]));
+		}
+		if (max == 0 || Double.isInfinite(max)) {
+			return max;
+		}
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			double t = a[k] / max;
+			sum += t * t;
+		}
+		return max * Math.sqrt(sum);
+	}
+
+	/**
+	 * Returns the number of coefficients of {@code c} after discarding trailing
+	 * zero coefficients, keeping at least one coefficient.
+	 */
+	static int trimmedLength(double[] c, int n) {
+		while (n > 1 && c[n - 1] == 0) {
+			n--;
+		}
+		return n;
+	}
+}
@@ -1,7 +1,9 @@
 package a4;
 
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * A class that represents real valued univariate polynomials of degree n where
@@ -14,10 +16,25 @@ import java.util.Objects;
  * value depending on usage. This class represents the zero polynomial as a
  * polynomial of degree zero (i.e., there is exactly one coefficient).
  * 
+ * <p>
+ * The coefficients are stored in an array that may be longer than the number
+ * of coefficients, like the array of an {@code ArrayList}. The methods whose
+ * names end in {@code InPlace}, and {@code fma}, modify this polynomial and
+ * reuse that spare capacity, so iterative algorithms can update a polynomial
+ * without allocating; the other arithmetic methods return new objects.
+ * 
  */
-public class Polynomial {
+public class Polynomial implements PolynomialFunction {
 
-	private double[] a; // length == degree + 1
+	/**
+	 * The default relative tolerance of {@link #gcd(Polynomial)}.
+	 */
+	public static final double DEFAULT_GCD_TOLERANCE = 1e-10;
+
+	private double[] a; // capacity, a.length >= n
+	private int n; // number of coefficients, n == degree + 1
+	private double[] anti; // antiderivative with zero constant term, or null
+	private double[][] derivs; // derivs[k - 1] is the k-th derivative, or null
 
 	/**
 	 * Initializes this polynomial so that it has the specified coefficients. The
@@ -40,6 +57,7 @@ public class Polynomial {
 			throw new IllegalArgumentException();
 		}
 		this.a = Arrays.copyOf(coeffs, coeffs.length);
+		this.n = coeffs.length;
 	}
 
 	/**
@@ -53,7 +71,19 @@ public class Polynomial {
 	 * @param other the polynomial to copy
 	 */
 	public Polynomial(Polynomial other) {
-		this.a = Arrays.copyOf(other.a, other.a.length);
+		this.a = Arrays.copyOf(other.a, other.n);
+		this.n = other.n;
+	}
+
+	/**
+	 * Returns a polynomial that uses {@code coeffs} as its coefficient array
+	 * without copying or validating it.
+	 */
+	private static Polynomial wrap(double[] coeffs) {
+		Polynomial p = new Polynomial(0.0);
+		p.a = coeffs;
+		p.n = coeffs.length;
+		return p;
 	}
 
 	/**
@@ -61,8 +91,9 @@ public class Polynomial {
 	 * 
 	 * @return the degree of this polynomial
 	 */
+	@Override
 	public int degree() {
-		return a.length - 1;
+		return n - 1;
 	}
 
 	/**
@@ -82,7 +113,18 @@ public class Polynomial {
 	 * @return an array containing the coefficients of this polynomial
 	 */
 	public double[] getCoeffs() {
-		return Arrays.copyOf(a, a.length);
+		return Arrays.copyOf(a, n);
+	}
+
+	/**
+	 * Returns the coefficient array of this polynomial without copying it. Only the
+	 * first {@code degree() + 1} elements are coefficients; the array may be
+	 * longer. Callers in this package must not modify the returned array.
+	 * 
+	 * @return the coefficient array of this polynomial
+	 */
+	double[] coeffs() {
+		return this.a;
 	}
 
 	/**
@@ -95,7 +137,7 @@ public class Polynomial {
 	 * @throws IllegalArgumentException if i is not a valid index
 	 */
 	public double getCoeffAt(int i) {
-		if (i < a.length - 1) {
+		if (i < 0 || i >= n) {
 			throw new IllegalArgumentException();
 		}
 		return a[i];
@@ -131,7 +173,13 @@ public class Polynomial {
 		if (coeffs.length == 0 || (coeffs[coeffs.length - 1] == 0 && coeffs.length > 1)) {
 			throw new IllegalArgumentException();
 		}
-		this.a = Arrays.copyOf(coeffs, coeffs.length);
+		if (coeffs.length <= a.length) {
+			System.arraycopy(coeffs, 0, a, 0, coeffs.length); // reuse the capacity
+		} else {
+			this.a = Arrays.copyOf(coeffs, coeffs.length);
+		}
+		this.n = coeffs.length;
+		this.invalidate();
 	}
 
 	/**
@@ -143,27 +191,317 @@ public class Polynomial {
 	 * @throws IllegalArgumentException if i is not a valid index
 	 */
 	public void setCoeffAt(int i, double ai) {
-		if (i > a.length) {
+		if (i >= n) {
 			throw new IllegalArgumentException();
 		}
 		this.a[i] = ai;
+		this.invalidate();
+	}
+
+	/**
+	 * Discards the cached antiderivative and derivatives after the coefficients of
+	 * this polynomial change.
+	 */
+	private void invalidate() {
+		this.anti = null;
+		this.derivs = null;
 	}
 
 	/**
-	 * Evaluates this polynomial at the specified {@code x} value.
+	 * Discards trailing zero coefficients, keeping at least one coefficient.
+	 */
+	private void trim() {
+		while (this.n > 1 && this.a[this.n - 1] == 0) {
+			this.n--;
+		}
+	}
+
+	/**
+	 * Returns the number of coefficients this polynomial can hold before its
+	 * coefficient array has to grow.
+	 * 
+	 * @return the capacity of this polynomial
+	 */
+	public int capacity() {
+		return this.a.length;
+	}
+
+	/**
+	 * Grows the coefficient array of this polynomial, if necessary, so that it can
+	 * hold at least {@code minCapacity} coefficients without being reallocated. The
+	 * degree of this polynomial is not changed.
+	 * 
+	 * @param minCapacity the number of coefficients to make room for
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if (minCapacity > this.a.length) {
+			this.a = Arrays.copyOf(this.a, Math.max(minCapacity, this.a.length + (this.a.length >> 1)));
+		}
+	}
+
+	/**
+	 * Shrinks the coefficient array of this polynomial to the number of
+	 * coefficients.
+	 */
+	public void trimToSize() {
+		if (this.a.length > this.n) {
+			this.a = Arrays.copyOf(this.a, this.n);
+		}
+	}
+
+	/**
+	 * Adds {@code other} to this polynomial, modifying this polynomial. Trailing
+	 * zero coefficients of the sum are discarded.
+	 * 
+	 * @param other the polynomial to add to this polynomial
+	 */
+	public void addInPlace(Polynomial other) {
+		this.fma(1, other);
+	}
+
+	/**
+	 * Multiplies every coefficient of this polynomial by {@code s}, modifying this
+	 * polynomial. Scaling by zero makes this polynomial the zero polynomial.
+	 * 
+	 * @param s the factor to scale this polynomial by
+	 */
+	public void scaleInPlace(double s) {
+		for (int i = 0; i < this.n; i++) {
+			this.a[i] *= s;
+		}
+		this.trim();
+		this.invalidate();
+	}
+
+	/**
+	 * Adds {@code s} times {@code other} to this polynomial, modifying this
+	 * polynomial. Trailing zero coefficients of the result are discarded.
+	 * {@code other} may be this polynomial.
+	 * 
+	 * @param s     the factor to scale {@code other} by
+	 * @param other the polynomial to add to this polynomial
+	 */
+	public void fma(double s, Polynomial other) {
+		double[] b = other.a;
+		int m = other.n;
+		if (m > this.n) {
+			this.ensureCapacity(m);
+			Arrays.fill(this.a, this.n, m, 0);
+			this.n = m;
+		}
+		double[] c = this.a;
+		for (int i = 0; i < m; i++) {
+			c[i] += s * b[i];
+		}
+		this.trim();
+		this.invalidate();
+	}
+
+	/**
+	 * Replaces this polynomial with its derivative. The derivative of a constant
+	 * polynomial is the zero polynomial.
+	 */
+	public void differentiateInPlace() {
+		double[] c = this.a;
+		if (this.n == 1) {
+			c[0] = 0;
+		} else {
+			for (int i = 0; i < this.n - 1; i++) {
+				c[i] = c[i + 1] * (i + 1);
+			}
+			this.n--;
+			this.trim();
+		}
+		this.invalidate();
+	}
+
+	/**
+	 * Multiplies this polynomial by x raised to the power {@code k}, modifying this
+	 * polynomial. The zero polynomial is not changed.
+	 * 
+	 * @param k the power of x to multiply by
+	 * @throws IllegalArgumentException if {@code k < 0}
+	 */
+	public void shiftInPlace(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		if (k == 0 || this.isZero()) {
+			return;
+		}
+		this.ensureCapacity(this.n + k);
+		System.arraycopy(this.a, 0, this.a, k, this.n);
+		Arrays.fill(this.a, 0, k, 0);
+		this.n += k;
+		this.invalidate();
+	}
+
+	/**
+	 * Multiplies this polynomial by {@code other}, modifying this polynomial.
+	 * {@code other} may be this polynomial. The product is computed as by
+	 * {@link #multiply(Polynomial)}; products small enough for schoolbook
+	 * multiplication are formed in a per-thread scratch buffer and do not
+	 * allocate once the capacity of this polynomial is large enough.
+	 * 
+	 * @param other the polynomial to multiply this polynomial by
+	 */
+	public void multiplyInPlace(Polynomial other) {
+		if (this.isZero() || other.isZero()) {
+			this.a[0] = 0;
+			this.n = 1;
+			this.invalidate();
+			return;
+		}
+		int len = this.n + other.n - 1;
+		double lead = this.a[this.n - 1] * other.a[other.n - 1];
+		double[] c;
+		if (Math.min(this.n, other.n) < PolyMath.KARATSUBA_THRESHOLD) {
+			c = PolyMath.scratch(PolyMath.PRODUCT, len);
+			Arrays.fill(c, 0, len, 0);
+			PolyMath.schoolbook(this.a, 0, this.n, other.a, 0, other.n, c, 0);
+		} else {
+			c = PolyMath.multiply(this.a, this.n, other.a, other.n);
+		}
+		this.ensureCapacity(len);
+		System.arraycopy(c, 0, this.a, 0, len);
+		this.a[len - 1] = lead;
+		this.n = len;
+		this.trim();
+		this.invalidate();
+	}
+
+	/**
+	 * Evaluates this polynomial at the specified {@code x} value using Horner's
+	 * method.
 	 * 
 	 * @param x the value to evaluate this polynomial at
 	 * @return the value of {@code f(x)} where {@code f} is the function
 	 *         corresponding to this polynomial
 	 */
+	@Override
 	public double at(double x) {
-		double sum = 0;
-		for (int i = 0; i < a.length; i++) {
-			sum += Math.pow(x, i);
+		return horner(this.a, n, x);
+	}
+
+	private static double horner(double[] c, int len, double x) {
+		double sum = c[len - 1];
+		for (int i = len - 2; i >= 0; i--) {
+			sum = sum * x + c[i];
 		}
 		return sum;
 	}
 
+	/**
+	 * Evaluates this polynomial at every value in {@code xs}, storing
+	 * {@code f(xs[i])} in {@code out[i]}. {@code out} may be the same array as
+	 * {@code xs}.
+	 * 
+	 * <p>
+	 * The points are evaluated four at a time so that the four independent Horner
+	 * recurrences can overlap in the processor pipeline; the result for each point
+	 * is identical to {@link #at(double)}.
+	 * 
+	 * @param xs  the values to evaluate this polynomial at
+	 * @param out the array to store the values of the polynomial in
+	 * @throws IllegalArgumentException if {@code out.length < xs.length}
+	 */
+	public void at(double[] xs, double[] out) {
+		this.at(xs, 0, out, 0, xs.length);
+	}
+
+	/**
+	 * Evaluates this polynomial at {@code len} values of {@code xs} starting at
+	 * index {@code from}, storing the results in {@code out} starting at index
+	 * {@code to}. The ranges of {@code xs} and {@code out} may be the same but must
+	 * not otherwise overlap.
+	 * 
+	 * @param xs   the values to evaluate this polynomial at
+	 * @param from the index of the first value in {@code xs}
+	 * @param out  the array to store the values of the polynomial in
+	 * @param to   the index in {@code out} of the first result
+	 * @param len  the number of values to evaluate
+	 * @throws IllegalArgumentException if either range is out of bounds
+	 */
+	public void at(double[] xs, int from, double[] out, int to, int len) {
+		if (len < 0 || from < 0 || to < 0 || from > xs.length - len || to > out.length - len) {
+			throw new IllegalArgumentException();
+		}
+		double[] c = this.a;
+		int deg = this.n - 1;
+		double top = c[deg];
+		int i = 0;
+		for (; i + 4 <= len; i += 4) {
+			double x0 = xs[from + i], x1 = xs[from + i + 1], x2 = xs[from + i + 2], x3 = xs[from + i + 3];
+			double s0 = top, s1 = top, s2 = top, s3 = top;
+			for (int k = deg - 1; k >= 0; k--) {
+				double ck = c[k];
+				s0 = s0 * x0 + ck;
+				s1 = s1 * x1 + ck;
+				s2 = s2 * x2 + ck;
+				s3 = s3 * x3 + ck;
+			}
+			out[to + i] = s0;
+			out[to + i + 1] = s1;
+			out[to + i + 2] = s2;
+			out[to + i + 3] = s3;
+		}
+		for (; i < len; i++) {
+			double x = xs[from + i];
+			double s0 = top;
+			for (int k = deg - 1; k >= 0; k--) {
+				s0 = s0 * x + c[k];
+			}
+			out[to + i] = s0;
+		}
+	}
+
+	/**
+	 * Returns an evaluator specialized to the current coefficients of this
+	 * polynomial. For degrees up to 64 the evaluator is a generated class that
+	 * performs Horner's method fully unrolled with the coefficients as constants,
+	 * which the JIT compiler can fold into the machine code at the call site; for
+	 * higher degrees it is an ordinary loop over a copy of the coefficients.
+	 * 
+	 * <p>
+	 * The evaluator returns exactly the same values as {@link #at(double)}, and is
+	 * not affected by later changes to this polynomial. Evaluators are cached by
+	 * coefficient vector, so compiling equal polynomials repeatedly is cheap and
+	 * returns the same object.
+	 * 
+	 * @return a function equal to this polynomial
+	 */
+	public DoubleUnaryOperator compile() {
+		return PolynomialCompiler.compile(this.a, this.n);
+	}
+
+	/**
+	 * Replaces every value {@code x} between the position and the limit of
+	 * {@code xs} with {@code f(x)}. The position and limit of the buffer are not
+	 * changed.
+	 * 
+	 * @param xs a buffer of values to evaluate this polynomial at
+	 * @throws java.nio.ReadOnlyBufferException if {@code xs} is read-only
+	 */
+	public void at(DoubleBuffer xs) {
+		int pos = xs.position();
+		int len = xs.remaining();
+		if (xs.hasArray()) {
+			int off = xs.arrayOffset() + pos;
+			this.at(xs.array(), off, xs.array(), off, len);
+			return;
+		}
+		double[] c = this.a;
+		int deg = this.n - 1;
+		for (int i = pos; i < pos + len; i++) {
+			double x = xs.get(i);
+			double sum = c[deg];
+			for (int k = deg - 1; k >= 0; k--) {
+				sum = sum * x + c[k];
+			}
+			xs.put(i, sum);
+		}
+	}
+
 	/**
 	 * Returns the derivative of this polynomial as a new {@code Polynomial} object.
 	 * 
@@ -175,17 +513,87 @@ public class Polynomial {
 	 * If the degree of this polynomial is equal to zero (i.e., this polynomial is
 	 * equal to a constant), then the zero polynomial is returned.
 	 * 
+	 * <p>
+	 * The returned polynomial is a copy of a cached derivative, so it may be
+	 * modified freely; use {@link #derivativeAt(int, double)} to evaluate
+	 * derivatives without creating objects.
+	 * 
 	 * @return the polynomial equal to the derivative of this polynomial
 	 */
 	public Polynomial derivative() {
 		if (this.degree() == 0) {
 			return Polynomial.zero();
 		}
-		double arr[] = new double[degree()];
-		for (int i = 0; i < this.degree(); i++) {
-			arr[i] = a[i + 1] * (i + 1);
+		return new Polynomial(this.derivativeCoeffs(1));
+	}
+
+	/**
+	 * Evaluates the {@code k}-th derivative of this polynomial at the specified
+	 * {@code x} value without creating any {@code Polynomial} objects.
+	 * 
+	 * <p>
+	 * The coefficients of the derivatives are computed when they are first needed
+	 * and kept until the coefficients of this polynomial are changed, so repeated
+	 * calls cost only a Horner evaluation.
+	 * 
+	 * @param k the order of the derivative, where {@code 0} is this polynomial
+	 * @param x the value to evaluate the derivative at
+	 * @return the value of the {@code k}-th derivative of this polynomial at
+	 *         {@code x}
+	 * @throws IllegalArgumentException if {@code k < 0}
+	 */
+	public double derivativeAt(int k, double x) {
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		if (k == 0) {
+			return this.at(x);
+		}
+		if (k > this.degree()) {
+			return 0;
+		}
+		double[] c = this.derivativeCoeffs(k);
+		return horner(c, c.length, x);
+	}
+
+	/**
+	 * Returns the cached coefficients of the {@code k}-th derivative of this
+	 * polynomial, computing it and any lower derivatives that are missing, where
+	 * {@code 1 <= k <= degree()}.
+	 */
+	private double[] derivativeCoeffs(int k) {
+		double[][] d = this.derivs;
+		if (d == null) {
+			d = new double[this.degree()][];
+			this.derivs = d;
+		}
+		for (int j = 1; j <= k; j++) {
+			if (d[j - 1] == null) {
+				double[] prev = j == 1 ? this.a : d[j - 2];
+				double[] c = new double[this.n - j];
+				for (int i = 0; i < c.length; i++) {
+					c[i] = prev[i + 1] * (i + 1);
+				}
+				d[j - 1] = c;
+			}
 		}
-		return new Polynomial(arr);
+		return d[k - 1];
+	}
+
+	/**
+	 * Returns the cached coefficients of the antiderivative of this polynomial
+	 * whose constant term is zero, computing them if necessary.
+	 */
+	private double[] antiderivativeCoeffs() {
+		double[] f = this.anti;
+		if (f == null) {
+			f = new double[this.n + 1];
+			for (int i = 0; i < this.n; i++) {
+				f[i + 1] = this.a[i] / (i + 1);
+			}
+			this.anti = f;
+		}
+		return f;
 	}
 
 	/**
@@ -196,21 +604,279 @@ public class Polynomial {
 	 * If {@code x1 > x2} is {@code true}, then the values of {@code x1} and
 	 * {@code x2} are swapped before computing the definite integral.
 	 * 
+	 * <p>
+	 * The coefficients of the antiderivative are computed on the first call and
+	 * kept until the coefficients of this polynomial are changed, so each call
+	 * costs two Horner evaluations.
+	 * 
 	 * @param x1 a limit of the definite integral
 	 * @param x2 the other limit of the definite integral
 	 * @return the definite integral evaluated at the specified limits
 	 */
+	@Override
 	public double integrate(double x1, double x2) {
 		if (x1 > x2) {
 			double temp = x2;
 			x2 = x1;
 			x1 = temp;
 		}
-		double integral = 0;
-		for (int i = 0; i < this.degree() + 1; i++) {
-			integral += (a[i] * Math.pow(x2, i + 1) / (i + 1)) - (a[i] * Math.pow(x1, i + 1) / (i + 1));
+		double[] f = this.antiderivativeCoeffs();
+		return horner(f, f.length, x2) - horner(f, f.length, x1);
+	}
+
+	/**
+	 * Stores the definite integral of this polynomial from {@code lo[i]} to
+	 * {@code hi[i]} in {@code out[i]} for every {@code i}, swapping the limits of
+	 * any interval where {@code lo[i] > hi[i]} as {@link #integrate(double, double)}
+	 * does. {@code out} may be the same array as {@code lo} or {@code hi}.
+	 * 
+	 * @param lo  the lower limits of the definite integrals
+	 * @param hi  the upper limits of the definite integrals
+	 * @param out the array to store the definite integrals in
+	 * @throws IllegalArgumentException if {@code lo} and {@code hi} have different
+	 *                                  lengths or {@code out} is shorter than them
+	 */
+	public void integrate(double[] lo, double[] hi, double[] out) {
+		if (lo.length != hi.length || out.length < lo.length) {
+			throw new IllegalArgumentException();
+		}
+		double[] f = this.antiderivativeCoeffs();
+		int deg = f.length - 1;
+		for (int i = 0; i < lo.length; i++) {
+			double x1 = Math.min(lo[i], hi[i]);
+			double x2 = Math.max(lo[i], hi[i]);
+			// the two Horner recurrences are independent and can overlap
+			double s1 = f[deg], s2 = f[deg];
+			for (int k = deg - 1; k >= 0; k--) {
+				s1 = s1 * x1 + f[k];
+				s2 = s2 * x2 + f[k];
+			}
+			out[i] = s2 - s1;
 		}
-		return integral;
+	}
+
+	/**
+	 * Returns the product of this polynomial and {@code other} as a new
+	 * {@code Polynomial} object.
+	 * 
+	 * <p>
+	 * The algorithm depends on the degree of the lower-degree factor: schoolbook
+	 * multiplication for small degrees, Karatsuba multiplication for medium
+	 * degrees, and FFT convolution for large degrees. The FFT result is accurate
+	 * to within {@link #multiplyErrorBound(Polynomial)} in every coefficient.
+	 * 
+	 * <p>
+	 * The leading coefficient of the result is computed exactly as the product of
+	 * the leading coefficients of the factors, so it is non-zero unless one of the
+	 * factors is the zero polynomial (or the product underflows).
+	 * 
+	 * @param other the polynomial to multiply this polynomial by
+	 * @return the product of this polynomial and {@code other}
+	 */
+	public Polynomial multiply(Polynomial other) {
+		if (this.isZero() || other.isZero()) {
+			return Polynomial.zero();
+		}
+		double[] c = PolyMath.multiply(this.a, this.n, other.a, other.n);
+		c[c.length - 1] = this.a[this.n - 1] * other.a[other.n - 1];
+		return Polynomial.trimmed(c);
+	}
+
+	/**
+	 * Returns the square of this polynomial as a new {@code Polynomial} object.
+	 * 
+	 * @return the square of this polynomial
+	 */
+	public Polynomial square() {
+		return this.multiply(this);
+	}
+
+	/**
+	 * Returns this polynomial raised to the power {@code e} as a new
+	 * {@code Polynomial} object, computed by repeated squaring. Raising any
+	 * polynomial to the power zero returns the constant polynomial {@code 1}.
+	 * 
+	 * @param e the exponent
+	 * @return this polynomial raised to the power {@code e}
+	 * @throws IllegalArgumentException if {@code e < 0}
+	 */
+	public Polynomial pow(int e) {
+		if (e < 0) {
+			throw new IllegalArgumentException();
+		}
+		Polynomial result = new Polynomial(1);
+		Polynomial base = this;
+		while (e > 0) {
+			if ((e & 1) != 0) {
+				result = result.multiply(base);
+			}
+			e >>= 1;
+			if (e > 0) {
+				base = base.square();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an estimate of the largest absolute error in any coefficient of
+	 * {@code this.multiply(other)} caused by floating-point rounding. For the FFT
+	 * path the estimate is {@code ||a||_2 ||b||_2 eps (3 log2 N + 6)}, where
+	 * {@code a} and {@code b} are the coefficient vectors, {@code eps} is the unit
+	 * roundoff, and {@code N} is the transform length.
+	 * 
+	 * @param other the polynomial to multiply this polynomial by
+	 * @return an estimate of the largest coefficient error of the product
+	 */
+	public double multiplyErrorBound(Polynomial other) {
+		return PolyMath.errorBound(this.a, this.n, other.a, other.n);
+	}
+
+	/**
+	 * Returns the quotient and remainder of dividing this polynomial by
+	 * {@code divisor}, as an array of two new {@code Polynomial} objects. The
+	 * remainder is zero or has a lower degree than {@code divisor}.
+	 *
+	 * <p>
+	 * Small divisions use long division. When both the divisor and the quotient
+	 * have at least {@code PolyMath.DIVISION_THRESHOLD} coefficients, the
+	 * quotient is computed from the power series inverse of the reversed divisor,
+	 * found by Newton iteration, so that the division costs a constant number of
+	 * fast multiplications instead of time proportional to the product of the
+	 * degrees. Either way the quotient and remainder are only accurate relative to
+	 * their own size: dividing by a polynomial whose reversal has roots inside the
+	 * unit circle produces coefficients that grow exponentially with the degree
+	 * of the quotient.
+	 *
+	 * @param divisor the polynomial to divide this polynomial by
+	 * @return an array holding the quotient and the remainder
+	 * @throws IllegalArgumentException if {@code divisor} is the zero polynomial
+	 */
+	public Polynomial[] divideAndRemainder(Polynomial divisor) {
+		if (divisor.isZero()) {
+			throw new IllegalArgumentException();
+		}
+		double[][] qr = PolyMath.divide(this.a, this.n, divisor.a, divisor.n);
+		return new Polynomial[] { Polynomial.trimmed(qr[0]), Polynomial.trimmed(qr[1]) };
+	}
+
+	/**
+	 * Returns the remainder of dividing this polynomial by {@code divisor} as a
+	 * new {@code Polynomial} object; see {@link #divideAndRemainder(Polynomial)}.
+	 *
+	 * @param divisor the polynomial to divide this polynomial by
+	 * @return the remainder
+	 * @throws IllegalArgumentException if {@code divisor} is the zero polynomial
+	 */
+	public Polynomial mod(Polynomial divisor) {
+		if (divisor.isZero()) {
+			throw new IllegalArgumentException();
+		}
+		if (this.n < divisor.n) {
+			return new Polynomial(this);
+		}
+		return Polynomial.trimmed(PolyMath.divide(this.a, this.n, divisor.a, divisor.n)[1]);
+	}
+
+	/**
+	 * Returns the monic greatest common divisor of this polynomial and
+	 * {@code other}, using {@code DEFAULT_GCD_TOLERANCE}; see
+	 * {@link #gcd(Polynomial, double)}.
+	 *
+	 * @param other the other polynomial
+	 * @return the greatest common divisor of this polynomial and {@code other}
+	 */
+	public Polynomial gcd(Polynomial other) {
+		return this.gcd(other, DEFAULT_GCD_TOLERANCE);
+	}
+
+	/**
+	 * Returns the monic greatest common divisor of this polynomial and
+	 * {@code other} as a new {@code Polynomial} object, computed by the Euclidean
+	 * algorithm. The greatest common divisor of two zero polynomials is zero.
+	 *
+	 * <p>
+	 * With floating-point coefficients the remainders of the Euclidean algorithm
+	 * are almost never exactly zero, so the algorithm is guarded by a tolerance:
+	 * a remainder whose Euclidean norm is at most {@code tol} times the norm of
+	 * the dividend is taken to be zero, and leading coefficients of a remainder
+	 * that are at most that size are discarded before it is used as a divisor.
+	 * Every remainder is scaled to unit norm so that the coefficients cannot
+	 * overflow or underflow. The result is the exact greatest common divisor of
+	 * polynomials within about {@code tol} of this polynomial and {@code other},
+	 * so it is only meaningful when {@code tol} is larger than the rounding
+	 * errors in their coefficients.
+	 *
+	 * @param other the other polynomial
+	 * @param tol   the relative tolerance
+	 * @return the greatest common divisor of this polynomial and {@code other}
+	 * @throws IllegalArgumentException if {@code tol} is negative or not finite
+	 */
+	public Polynomial gcd(Polynomial other, double tol) {
+		if (!(tol >= 0) || Double.isInfinite(tol)) {
+			throw new IllegalArgumentException();
+		}
+		if (this.isZero() && other.isZero()) {
+			return Polynomial.zero();
+		}
+		double[] f = this.a;
+		int nf = this.n;
+		double[] g = other.a;
+		int ng = other.n;
+		if (nf < ng || this.isZero()) {
+			f = other.a;
+			nf = other.n;
+			g = this.a;
+			ng = this.n;
+		}
+		f = normalized(f, nf);
+		g = other.isZero() || this.isZero() ? new double[0] : normalized(g, ng);
+		while (g.length > 0) {
+			// f and g have unit norm, and deg f >= deg g
+			double[] r = g.length == 1 ? new double[0] : PolyMath.divide(f, f.length, g, g.length)[1];
+			int nr = r.length;
+			while (nr > 0 && Math.abs(r[nr - 1]) <= tol) {
+				nr--;
+			}
+			f = g;
+			g = nr == 0 || PolyMath.norm2(r, nr) <= tol ? new double[0] : normalized(r, nr);
+		}
+		double lead = f[f.length - 1];
+		for (int k = 0; k < f.length; k++) {
+			f[k] /= lead;
+		}
+		f[f.length - 1] = 1;
+		return wrap(f);
+	}
+
+	/**
+	 * Returns a copy of the first {@code n} coefficients of {@code c} scaled to
+	 * unit Euclidean norm.
+	 */
+	private static double[] normalized(double[] c, int n) {
+		double[] d = Arrays.copyOf(c, n);
+		double s = PolyMath.norm2(d, n);
+		for (int k = 0; k < n; k++) {
+			d[k] /= s;
+		}
+		return d;
+	}
+
+	/**
+	 * Returns {@code true} if this polynomial is the zero polynomial.
+	 */
+	private boolean isZero() {
+		return this.n == 1 && this.a[0] == 0;
+	}
+
+	/**
+	 * Returns a polynomial with the coefficients of {@code c} after discarding
+	 * trailing zero coefficients. {@code c} is not copied if it has no trailing
+	 * zeros, so the caller must not modify it afterwards.
+	 */
+	static Polynomial trimmed(double[] c) {
+		int len = PolyMath.trimmedLength(c, c.length);
+		return wrap(len == c.length ? c : Arrays.copyOf(c, len));
 	}
 
 	/**
@@ -262,7 +928,7 @@ public class Polynomial {
 	@Override
 	public String toString() {
 		String s = "" + a[0];
-		for (int i = 1; i < a.length; i++) {
+		for (int i = 1; i < n; i++) {
 			s += " + " + a[i] + " " + "x**" + i;
 		}
 		return s;
@@ -0,0 +1,284 @@
+package a4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Generates evaluators specialized to fixed coefficient vectors for
+ * {@link Polynomial#compile()}.
+ *
+ * <p>
+ * For degrees up to {@code MAX_DEGREE} the evaluator is a hidden class whose
+ * {@code applyAsDouble} method is Horner's method fully unrolled, with every
+ * coefficient loaded as a constant by {@code ldc2_w}. The class file is written
+ * by hand, since it has one straight-line method and needs no stack map frames,
+ * and defined with {@code MethodHandles.Lookup.defineHiddenClass}, so it can be
+ * unloaded once the evaluator is unreachable. The JIT compiler can then inline
+ * the evaluator into a monomorphic call site and fold the coefficients into
+ * the machine code. Higher degrees, or a failure to define the class, fall back
+ * to a lambda over a private copy of the coefficients.
+ *
+ * <p>
+ * Evaluators are cached by coefficient vector, compared bit for bit, so that
+ * compiling equal polynomials returns the same evaluator; the cache stops
+ * growing once it holds {@code MAX_CACHED} evaluators.
+ */
+final class PolynomialCompiler {
+
+	/**
+	 * The highest degree compiled to a hidden class. The unrolled method uses six
+	 * bytes of code and one constant pool entry per coefficient.
+	 */
+	static final int MAX_DEGREE = 64;
+
+	private static final int MAX_CACHED = 1024;
+
+	private static final ConcurrentHashMap<Key, DoubleUnaryOperator> CACHE = new ConcurrentHashMap<>();
+
+	private PolynomialCompiler() {
+	}
+
+	/**
+	 * A coefficient vector compared by the bits of its elements, so that
+	 * {@code -0.0} and {@code 0.0} are distinct and NaN equals itself.
+	 */
+	private static final class Key {
+		private final double[] c;
+		private final int hash;
+
+		Key(double[] c) {
+			this.c = c;
+			int h = 1;
+			for (double ci : c) {
+				long bits = Double.doubleToLongBits(ci);
+				h = 31 * h + (int) (bits ^ (bits >>> 32));
+			}
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			// Arrays.equals(double[], double[]) compares doubleToLongBits
+			return obj instanceof Key && Arrays.equals(c, ((Key) obj).c);
+		}
+	}
+
+	/**
+	 * Returns an evaluator for the polynomial with the first {@code n}
+	 * coefficients of {@code a}. The coefficients are copied.
+	 */
+	static DoubleUnaryOperator compile(double[] a, int n) {
+		Key key = new Key(Arrays.copyOf(a, n));
+		DoubleUnaryOperator f = CACHE.get(key);
+		if (f == null) {
+			f = generate(key.c);
+			if (CACHE.size() < MAX_CACHED) {
+				DoubleUnaryOperator prev = CACHE.putIfAbsent(key, f);
+				if (prev != null) {
+					f = prev;
+				}
+			}
+		}
+		return f;
+	}
+
+	private static DoubleUnaryOperator generate(double[] c) {
+		if (c.length - 1 <= MAX_DEGREE) {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile(c), true);
+				return (DoubleUnaryOperator) lookup.lookupClass().getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// fall through to the interpreted evaluator
+			}
+		}
+		return x -> {
+			double sum = c[c.length - 1];
+			for (int i = c.length - 2; i >= 0; i--) {
+				sum = sum * x + c[i];
+			}
+			return sum;
+		};
+	}
+
+	// constant pool indexes of the fixed entries written by classFile
+	private static final int THIS_CLASS = 2;
+	private static final int SUPER_CLASS = 4;
+	private static final int INTERFACE = 6;
+	private static final int INIT_NAME = 7;
+	private static final int VOID_DESC = 8;
+	private static final int SUPER_INIT = 10;
+	private static final int APPLY_NAME = 11;
+	private static final int APPLY_DESC = 12;
+	private static final int CODE = 13;
+	private static final int FIRST_DOUBLE = 14;
+
+	/**
+	 * Returns a class file for a final class in this package that implements
+	 * {@code DoubleUnaryOperator} by evaluating the polynomial with coefficients
+	 * {@code c} with the same operations, in the same order, as
+	 * {@code Polynomial.at(double)}.
+	 */
+	static byte[] classFile(double[] c) {
+		int n = c.length;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + 16 * n);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0); // minor version
+			out.writeShort(61); // Java 17
+
+			// constant pool: the fixed entries, then one Double (two slots) per
+			// coefficient
+			out.writeShort(FIRST_DOUBLE + 2 * n);
+			utf8(out, "a4/PolynomialCompiled"); // 1
+			out.writeByte(7); // 2: Class
+			out.writeShort(1);
+			utf8(out, "java/lang/Object"); // 3
+			out.writeByte(7); // 4: Class
+			out.writeShort(3);
+			utf8(out, "java/util/function/DoubleUnaryOperator"); // 5
+			out.writeByte(7); // 6: Class
+			out.writeShort(5);
+			utf8(out, "<init>"); // 7
+			utf8(out, "()V"); // 8
+			out.writeByte(12); // 9: NameAndType
+			out.writeShort(INIT_NAME);
+			out.writeShort(VOID_DESC);
+			out.writeByte(10); // 10: Methodref
+			out.writeShort(SUPER_CLASS);
+			out.writeShort(9);
+			utf8(out, "applyAsDouble"); // 11
+			utf8(out, "(D)D"); // 12
+			utf8(out, "Code"); // 13
+			for (double ci : c) {
+				out.writeByte(6); // Double
+				out.writeLong(Double.doubleToRawLongBits(ci));
+			}
+
+			out.writeShort(0x0031); // ACC_PUBLIC | ACC_FINAL | ACC_SUPER
+			out.writeShort(THIS_CLASS);
+			out.writeShort(SUPER_CLASS);
+			out.writeShort(1);
+			out.writeShort(INTERFACE);
+			out.writeShort(0); // fields
+			out.writeShort(2); // methods
+
+			// public <init>() { super(); }
+			out.writeShort(0x0001);
+			out.writeShort(INIT_NAME);
+			out.writeShort(VOID_DESC);
+			out.writeShort(1);
+			code(out, 1, 1, new byte[] { 0x2A, (byte) 0xB7, 0, SUPER_INIT, (byte) 0xB1 });
+
+			// public double applyAsDouble(double x): Horner's method, unrolled
+			byte[] code = new byte[3 + 6 * (n - 1) + 1];
+			int pc = 0;
+			pc = ldc2(code, pc, FIRST_DOUBLE + 2 * (n - 1));
+			for (int k = n - 2; k >= 0; k--) {
+				code[pc++] = 0x27; // dload_1
+				code[pc++] = 0x6B; // dmul
+				pc = ldc2(code, pc, FIRST_DOUBLE + 2 * k);
+				code[pc++] = 0x63; // dadd
+			}
+			code[pc] = (byte) 0xAF; // dreturn
+			out.writeShort(0x0001);
+			out.writeShort(APPLY_NAME);
+			out.writeShort(APPLY_DESC);
+			out.writeShort(1);
+			code(out, 4, 3, code);
+
+			out.writeShort(0); // class attributes
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new AssertionError(e); // ByteArrayOutputStream does not throw
+		}
+	}
+
+	private static void utf8(DataOutputStream out, String s) throws IOException {
+		out.writeByte(1);
+		out.writeUTF(s);
+	}
+
+	private static int ldc2(byte[] code, int pc, int index) {
+		code[pc] = 0x14; // ldc2_w
+		code[pc + 1] = (byte) (index >>> 8);
+		code[pc + 2] = (byte) index;
+		return pc + 3;
+	}
+
+	private static void code(DataOutputStream out, int maxStack, int maxLocals, byte[] code) throws IOException {
+		out.writeShort(CODE);
+		out.writeInt(12 + code.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(code.length);
+		out.write(code);
+		out.writeShort(0); // exception table
+		out.writeShort(0); // attributes
+	}
+
+	/**
+	 * Times {@code Polynomial.at(double)} against the compiled evaluator for
+	 * several degrees, summing the values at a million points, and reports the
+	 * nanoseconds per evaluation.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		Random rng = new Random(1);
+		double[] xs = new double[1 << 20];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = 2 * rng.nextDouble() - 1;
+		}
+		System.out.println("degree  generic  compiled");
+		for (int n : new int[] { 2, 4, 8, 16, 32, 64 }) {
+			double[] c = new double[n + 1];
+			for (int i = 0; i <= n; i++) {
+				c[i] = rng.nextDouble() + 0.5;
+			}
+			Polynomial p = new Polynomial(c);
+			DoubleUnaryOperator f = p.compile();
+			double check = 0;
+			long generic = Long.MAX_VALUE, compiled = Long.MAX_VALUE;
+			for (int rep = 0; rep < 20; rep++) {
+				long start = System.nanoTime();
+				double s = sum(p, xs);
+				generic = Math.min(generic, System.nanoTime() - start);
+				start = System.nanoTime();
+				double t = sum(f, xs);
+				compiled = Math.min(compiled, System.nanoTime() - start);
+				check += s - t;
+			}
+			System.out.printf("%6d %8.2f %9.2f%s%n", n, (double) generic / xs.length, (double) compiled / xs.length,
+					check == 0 ? "" : "  results differ");
+		}
+	}
+
+	private static double sum(Polynomial p, double[] xs) {
+		double s = 0;
+		for (double x : xs) {
+			s += p.at(x);
+		}
+		return s;
+	}
+
+	private static double sum(DoubleUnaryOperator f, double[] xs) {
+		double s = 0;
+		for (double x : xs) {
+			s += f.applyAsDouble(x);
+		}
+		return s;
+	}
+}
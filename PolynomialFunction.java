@@ -0,0 +1,36 @@
+package a4;
+
+/**
+ * A real valued univariate polynomial that can be evaluated and integrated,
+ * independent of how its coefficients are stored.
+ */
+public interface PolynomialFunction {
+
+	/**
+	 * Returns the degree of this polynomial.
+	 *
+	 * @return the degree of this polynomial
+	 */
+	public int degree();
+
+	/**
+	 * Evaluates this polynomial at the specified {@code x} value.
+	 *
+	 * @param x the value to evaluate this polynomial at
+	 * @return the value of {@code f(x)} where {@code f} is the function
+	 *         corresponding to this polynomial
+	 */
+	public double at(double x);
+
+	/**
+	 * Returns the definite integral of this polynomial evaluated from {@code x1} to
+	 * {@code x2}. If {@code x1 > x2} is {@code true}, then the values of
+	 * {@code x1} and {@code x2} are swapped before computing the definite
+	 * integral.
+	 *
+	 * @param x1 a limit of the definite integral
+	 * @param x2 the other limit of the definite integral
+	 * @return the definite integral evaluated at the specified limits
+	 */
+	public double integrate(double x1, double x2);
+}
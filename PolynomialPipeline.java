@@ -0,0 +1,458 @@
+package a4;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates a fixed set of polynomials at every value of a binary file,
+ * writing the values to another binary file.
+ *
+ * <p>
+ * The input file holds {@code double}s stored little-endian. For every input
+ * value {@code x} the output file holds the values of the polynomials at
+ * {@code x}, in the order the polynomials were given, also as little-endian
+ * {@code double}s; the output is {@code size()} times as long as the input.
+ *
+ * <p>
+ * The file is processed in chunks of {@code chunkSize} values by three stages
+ * that run at the same time: the calling thread reads chunks from the input
+ * file into direct buffers, tasks on a fork/join pool evaluate the chunks, and
+ * a writer thread writes the finished chunks to the output file in input
+ * order. A run allocates {@code depth} chunks up front and reuses them; the
+ * reader waits for the writer to release a chunk when all of them are in use,
+ * so a slow disk or a busy pool holds back the reader instead of letting
+ * unwritten results pile up in memory.
+ *
+ * <p>
+ * The polynomials are copied when the pipeline is created, and a pipeline may
+ * run several files at once.
+ *
+ */
+public class PolynomialPipeline {
+
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+	private final Polynomial[] ps;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+	private final int depth;
+
+	/**
+	 * Initializes this pipeline to evaluate the specified polynomials on the
+	 * common fork/join pool, with chunks of 65536 values and two more chunks in
+	 * flight than the pool has threads.
+	 *
+	 * @param ps the polynomials to evaluate
+	 * @throws IllegalArgumentException if there are no polynomials
+	 */
+	public PolynomialPipeline(Polynomial... ps) {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool().getParallelism() + 2, ps);
+	}
+
+	/**
+	 * Initializes this pipeline to evaluate the specified polynomials on the
+	 * specified fork/join pool.
+	 *
+	 * @param pool      the pool to evaluate chunks on
+	 * @param chunkSize the number of input values per chunk
+	 * @param depth     the number of chunks that may be read but not yet written
+	 * @param ps        the polynomials to evaluate
+	 * @throws IllegalArgumentException if there are no polynomials,
+	 *                                  {@code chunkSize} or {@code depth} is not
+	 *                                  positive, or an output chunk would be
+	 *                                  larger than a buffer can hold
+	 */
+	public PolynomialPipeline(ForkJoinPool pool, int chunkSize, int depth, Polynomial... ps) {
+		if (ps.length == 0 || chunkSize <= 0 || depth <= 0
+				|| (long) chunkSize * ps.length * Double.BYTES > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException();
+		}
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+		this.depth = depth;
+		this.ps = new Polynomial[ps.length];
+		for (int j = 0; j < ps.length; j++) {
+			this.ps[j] = new Polynomial(ps[j]);
+		}
+	}
+
+	/**
+	 * Returns the number of polynomials this pipeline evaluates.
+	 *
+	 * @return the number of polynomials
+	 */
+	public int size() {
+		return ps.length;
+	}
+
+	/**
+	 * Timings and counts of one run of a pipeline. The times of the read,
+	 * evaluate and write stages are summed over the threads that ran them, so
+	 * comparing them with the elapsed time shows which stage limits throughput.
+	 */
+	public static final class Metrics {
+		private final long values;
+		private final long bytesRead;
+		private final long bytesWritten;
+		private final long elapsedNanos;
+		private final long readNanos;
+		private final long evaluateNanos;
+		private final long writeNanos;
+		private final long stallNanos;
+
+		Metrics(long values, long bytesRead, long bytesWritten, long elapsedNanos, long readNanos,
+				long evaluateNanos, long writeNanos, long stallNanos) {
+			this.values = values;
+			this.bytesRead = bytesRead;
+			this.bytesWritten = bytesWritten;
+			this.elapsedNanos = elapsedNanos;
+			this.readNanos = readNanos;
+			this.evaluateNanos = evaluateNanos;
+			this.writeNanos = writeNanos;
+			this.stallNanos = stallNanos;
+		}
+
+		/**
+		 * Returns the number of input values processed.
+		 */
+		public long values() {
+			return values;
+		}
+
+		/**
+		 * Returns the number of bytes read from the input file.
+		 */
+		public long bytesRead() {
+			return bytesRead;
+		}
+
+		/**
+		 * Returns the number of bytes written to the output file.
+		 */
+		public long bytesWritten() {
+			return bytesWritten;
+		}
+
+		/**
+		 * Returns the wall-clock time of the run in nanoseconds.
+		 */
+		public long elapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * Returns the time spent reading the input file in nanoseconds.
+		 */
+		public long readNanos() {
+			return readNanos;
+		}
+
+		/**
+		 * Returns the time spent evaluating polynomials in nanoseconds, summed over
+		 * the pool threads.
+		 */
+		public long evaluateNanos() {
+			return evaluateNanos;
+		}
+
+		/**
+		 * Returns the time spent writing the output file in nanoseconds.
+		 */
+		public long writeNanos() {
+			return writeNanos;
+		}
+
+		/**
+		 * Returns the time the reader spent waiting for a free chunk in nanoseconds.
+		 */
+		public long stallNanos() {
+			return stallNanos;
+		}
+
+		/**
+		 * Returns the number of input values processed per second.
+		 */
+		public double valuesPerSecond() {
+			return elapsedNanos == 0 ? 0 : values * 1e9 / elapsedNanos;
+		}
+
+		/**
+		 * Returns the number of bytes read and written per second.
+		 */
+		public double bytesPerSecond() {
+			return elapsedNanos == 0 ? 0 : (bytesRead + bytesWritten) * 1e9 / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"%d values in %.1f ms (%.1f M values/s, %.1f MB/s); read %.1f ms, evaluate %.1f ms, write %.1f ms, stalled %.1f ms",
+					values, elapsedNanos / 1e6, valuesPerSecond() / 1e6, bytesPerSecond() / 1e6, readNanos / 1e6,
+					evaluateNanos / 1e6, writeNanos / 1e6, stallNanos / 1e6);
+		}
+	}
+
+	/**
+	 * The buffers for one chunk of input values and their results.
+	 */
+	private static final class Chunk {
+		final ByteBuffer in;
+		final ByteBuffer out;
+		final double[] xs;
+		final double[] ys;
+		final double[] rows;
+		long index; // chunk number in the file, or -1 for the end marker
+		int count; // number of input values
+		ForkJoinTask<?> task;
+
+		Chunk(int size, int m) {
+			this.in = ByteBuffer.allocateDirect(size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			this.out = ByteBuffer.allocateDirect(size * m * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			this.xs = new double[size];
+			this.ys = new double[size];
+			this.rows = new double[size * m];
+		}
+	}
+
+	/**
+	 * Evaluates the polynomials at every value of the input file and writes the
+	 * values to the output file, replacing it if it already exists.
+	 *
+	 * @param input  the file of values to evaluate the polynomials at
+	 * @param output the file to write the values of the polynomials to
+	 * @return the timings of the run
+	 * @throws IOException if a file cannot be read or written, or the length of
+	 *                     the input file is not a multiple of eight bytes
+	 */
+	public Metrics run(Path input, Path output) throws IOException {
+		try (FileChannel src = FileChannel.open(input, StandardOpenOption.READ);
+				FileChannel dst = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long bytes = src.size();
+			if (bytes % Double.BYTES != 0) {
+				throw new IOException("Input length is not a multiple of 8 bytes.");
+			}
+			return this.run(src, dst, bytes / Double.BYTES);
+		}
+	}
+
+	private Metrics run(FileChannel src, FileChannel dst, long values) throws IOException {
+		int m = ps.length;
+		long start = System.nanoTime();
+		BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(depth);
+		for (int k = 0; k < depth; k++) {
+			free.add(new Chunk(chunkSize, m));
+		}
+		// the extra slot is for the end marker
+		BlockingQueue<Chunk> pending = new ArrayBlockingQueue<>(depth + 1);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		LongAdder evaluateNanos = new LongAdder();
+		long[] writeNanos = new long[1];
+
+		Thread writer = new Thread(() -> {
+			long chunkBytes = (long) chunkSize * m * Double.BYTES;
+			try {
+				for (Chunk c = pending.take(); c.index >= 0; c = pending.take()) {
+					try {
+						c.task.get();
+						if (failure.get() == null) {
+							long t = System.nanoTime();
+							c.out.clear().limit(c.count * m * Double.BYTES);
+							long pos = c.index * chunkBytes;
+							while (c.out.hasRemaining()) {
+								pos += dst.write(c.out, pos);
+							}
+							writeNanos[0] += System.nanoTime() - t;
+						}
+					} catch (ExecutionException e) {
+						failure.compareAndSet(null, e.getCause());
+					} catch (IOException | RuntimeException e) {
+						failure.compareAndSet(null, e);
+					}
+					// keep releasing chunks after a failure so the reader cannot block
+					free.add(c);
+				}
+			} catch (InterruptedException e) {
+				failure.compareAndSet(null, e);
+			}
+		}, "PolynomialPipeline writer");
+		writer.start();
+
+		long readNanos = 0, stallNanos = 0;
+		try {
+			long chunks = (values + chunkSize - 1) / chunkSize;
+			for (long index = 0; index < chunks && failure.get() == null; index++) {
+				long t = System.nanoTime();
+				Chunk c = free.take();
+				long r = System.nanoTime();
+				stallNanos += r - t;
+				c.index = index;
+				c.count = (int) Math.min(chunkSize, values - index * chunkSize);
+				c.in.clear().limit(c.count * Double.BYTES);
+				long pos = index * chunkSize * Double.BYTES;
+				while (c.in.hasRemaining()) {
+					int n = src.read(c.in, pos);
+					if (n < 0) {
+						throw new IOException("Input file was truncated while being read.");
+					}
+					pos += n;
+				}
+				readNanos += System.nanoTime() - r;
+				c.task = pool.submit(() -> {
+					long e = System.nanoTime();
+					this.evaluate(c);
+					evaluateNanos.add(System.nanoTime() - e);
+				});
+				pending.put(c);
+			}
+		} catch (InterruptedException | IOException | RuntimeException e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			Chunk end = new Chunk(0, 0);
+			end.index = -1;
+			boolean interrupted = false;
+			while (true) {
+				try {
+					pending.put(end);
+					writer.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		Throwable e = failure.get();
+		if (e instanceof IOException) {
+			throw (IOException) e;
+		} else if (e instanceof InterruptedException) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} else if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		} else if (e instanceof Error) {
+			throw (Error) e;
+		}
+		long elapsed = System.nanoTime() - start;
+		return new Metrics(values, values * Double.BYTES, values * m * Double.BYTES, elapsed, readNanos,
+				evaluateNanos.sum(), writeNanos[0], stallNanos);
+	}
+
+	/**
+	 * Evaluates every polynomial at the values of a chunk and fills its output
+	 * buffer, one row of {@code size()} values per input value.
+	 */
+	private void evaluate(Chunk c) {
+		int m = ps.length, count = c.count;
+		c.in.clear().limit(count * Double.BYTES);
+		c.in.asDoubleBuffer().get(c.xs, 0, count);
+		if (m == 1) {
+			ps[0].at(c.xs, 0, c.rows, 0, count);
+		} else {
+			for (int j = 0; j < m; j++) {
+				ps[j].at(c.xs, 0, c.ys, 0, count);
+				double[] rows = c.rows, ys = c.ys;
+				for (int i = 0; i < count; i++) {
+					rows[i * m + j] = ys[i];
+				}
+			}
+		}
+		DoubleBuffer out = c.out.clear().asDoubleBuffer();
+		out.put(c.rows, 0, count * m);
+	}
+
+	/**
+	 * Writes 16 million random values to a temporary file, then times evaluating
+	 * four polynomials of degree 8 at them with a single-threaded read, evaluate
+	 * and write loop and with a pipeline, and reports the metrics of the
+	 * pipeline.
+	 *
+	 * @param args not used
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int values = 1 << 24, degree = 8;
+		Random rng = new Random(1);
+		Polynomial[] ps = new Polynomial[4];
+		for (int j = 0; j < ps.length; j++) {
+			double[] a = new double[degree + 1];
+			for (int i = 0; i <= degree; i++) {
+				a[i] = rng.nextDouble() + 0.5;
+			}
+			ps[j] = new Polynomial(a);
+		}
+		Path in = Files.createTempFile("xs", ".bin");
+		Path out = Files.createTempFile("ys", ".bin");
+		try {
+			try (FileChannel ch = FileChannel.open(in, StandardOpenOption.WRITE)) {
+				ByteBuffer b = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+				for (int i = 0; i < values; i++) {
+					b.putDouble(2 * rng.nextDouble() - 1);
+					if (!b.hasRemaining() || i == values - 1) {
+						b.flip();
+						while (b.hasRemaining()) {
+							ch.write(b);
+						}
+						b.clear();
+					}
+				}
+			}
+
+			long start = System.nanoTime();
+			try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+					FileChannel dst = FileChannel.open(out, StandardOpenOption.WRITE,
+							StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer b = ByteBuffer.allocateDirect(8 << 16).order(ByteOrder.LITTLE_ENDIAN);
+				ByteBuffer o = ByteBuffer.allocateDirect(8 << 16).order(ByteOrder.LITTLE_ENDIAN);
+				while (src.read(b) > 0 || b.position() > 0) {
+					b.flip();
+					while (b.remaining() >= Double.BYTES) {
+						double x = b.getDouble();
+						for (Polynomial p : ps) {
+							if (!o.hasRemaining()) {
+								o.flip();
+								while (o.hasRemaining()) {
+									dst.write(o);
+								}
+								o.clear();
+							}
+							o.putDouble(p.at(x));
+						}
+					}
+					b.compact();
+				}
+				o.flip();
+				while (o.hasRemaining()) {
+					dst.write(o);
+				}
+			}
+			System.out.printf("loop: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+			PolynomialPipeline pipeline = new PolynomialPipeline(ps);
+			for (int rep = 0; rep < 3; rep++) {
+				System.out.println("pipeline: " + pipeline.run(in, out));
+			}
+		} finally {
+			Files.deleteIfExists(in);
+			Files.deleteIfExists(out);
+		}
+	}
+}
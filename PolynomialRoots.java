@@ -0,0 +1,531 @@
+package a4;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds all of the real and complex roots of {@code Polynomial} objects using
+ * the Aberth-Ehrlich method followed by Newton polishing.
+ *
+ * <p>
+ * The roots of a polynomial of degree {@code n} are returned as {@code n} pairs
+ * of real and imaginary parts in two primitive arrays, repeated according to
+ * multiplicity and in no particular order. Roots at zero are factored out
+ * exactly before iterating, and polynomials of degree one and two are solved in
+ * closed form. A root is reported as real, with an imaginary part of exactly
+ * {@code 0}, if its imaginary part is within the tolerance of zero relative to
+ * its magnitude or if the polynomial is zero to within rounding error at its
+ * real part; the second test keeps the ill-conditioned real roots of
+ * polynomials such as {@code (x - 1)(x - 2)...(x - 12)} real.
+ *
+ * <p>
+ * The iteration for a root stops when a step is smaller than the tolerance
+ * relative to the magnitude of the root, or when the value of the polynomial
+ * is within the rounding error of Horner's method. Each root is then polished
+ * with up to two Newton steps that are kept only if they reduce the value of
+ * the polynomial. The derivative used by both steps is evaluated alongside the
+ * polynomial by Horner's method, instead of through {@code derivative()}, so
+ * that no coefficients need to be allocated.
+ *
+ * <p>
+ * All scratch storage is held in a {@link Workspace}, which grows only when it
+ * is used for a polynomial of higher degree than before. Solving with a
+ * caller-supplied workspace, or with the per-thread workspaces used by the
+ * other methods of this class, does not allocate once the workspace is large
+ * enough.
+ *
+ */
+public class PolynomialRoots {
+
+	/**
+	 * The tolerance used by {@link #PolynomialRoots()}.
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-12;
+
+	private static final int MAX_ITERATIONS = 100;
+	private static final int POLISH_STEPS = 2;
+	private static final int BATCH = 16; // polynomials per fork/join leaf task
+	private static final double EPS = Math.ulp(1.0);
+
+	private final ForkJoinPool pool;
+	private final double tolerance;
+	private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(() -> new Workspace(0));
+
+	/**
+	 * Initializes this root finder to use the common fork/join pool and the
+	 * default tolerance.
+	 */
+	public PolynomialRoots() {
+		this(ForkJoinPool.commonPool(), DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * Initializes this root finder to use the common fork/join pool and the
+	 * specified tolerance.
+	 */
+	public PolynomialRoots(double tolerance) {
+		this(ForkJoinPool.commonPool(), tolerance);
+	}
+
+	/**
+	 * Initializes this root finder to use the specified fork/join pool for batches
+	 * and the specified tolerance.
+	 *
+	 * @param pool      the pool to solve batches of polynomials on
+	 * @param tolerance the relative size of the step at which the iteration for a
+	 *                  root stops
+	 * @throws IllegalArgumentException if {@code tolerance} is not positive
+	 */
+	public PolynomialRoots(ForkJoinPool pool, double tolerance) {
+		if (!(tolerance > 0)) {
+			throw new IllegalArgumentException("Tolerance must be positive.");
+		}
+		this.pool = pool;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Scratch storage for solving polynomials up to some degree.
+	 */
+	public static final class Workspace {
+		private double[] a = new double[1]; // coefficients after removing zero roots
+		private double[] zr = new double[0]; // real parts of the roots
+		private double[] zi = new double[0]; // imaginary parts of the roots
+		private boolean[] done = new boolean[0];
+
+		// results of the last call to eval
+		private double pr, pi, dr, di, bound;
+
+		/**
+		 * Initializes this workspace for polynomials of degree up to
+		 * {@code maxDegree}. The workspace grows if it is used for a polynomial of
+		 * higher degree.
+		 *
+		 * @throws IllegalArgumentException if {@code maxDegree < 0}
+		 */
+		public Workspace(int maxDegree) {
+			if (maxDegree < 0) {
+				throw new IllegalArgumentException();
+			}
+			ensure(maxDegree);
+		}
+
+		private void ensure(int n) {
+			if (zr.length < n) {
+				a = new double[n + 1];
+				zr = new double[n];
+				zi = new double[n];
+				done = new boolean[n];
+			}
+		}
+
+		/**
+		 * Evaluates the polynomial with coefficients {@code a[0..m]} and its
+		 * derivative at {@code x + iy}, storing the values in {@code (pr, pi)} and
+		 * {@code (dr, di)} and a bound on the rounding error of the value in
+		 * {@code bound}. If {@code reversed} is {@code true} the coefficients are
+		 * read in reverse order.
+		 */
+		private void eval(int m, double x, double y, boolean reversed) {
+			double[] a = this.a;
+			double r = Math.hypot(x, y);
+			double c = reversed ? a[0] : a[m];
+			double pr = c, pi = 0, dr = 0, di = 0, e = Math.abs(c);
+			for (int k = m - 1; k >= 0; k--) {
+				c = reversed ? a[m - k] : a[k];
+				double t = dr * x - di * y + pr;
+				di = dr * y + di * x + pi;
+				dr = t;
+				t = pr * x - pi * y + c;
+				pi = pr * y + pi * x;
+				pr = t;
+				e = e * r + Math.abs(c);
+			}
+			this.pr = pr;
+			this.pi = pi;
+			this.dr = dr;
+			this.di = di;
+			this.bound = 4 * (m + 1) * EPS * e;
+		}
+	}
+
+	/**
+	 * Stores the roots of {@code p} in {@code re} and {@code im}, using a
+	 * workspace that belongs to the calling thread.
+	 *
+	 * @return the number of roots stored, which is the degree of {@code p}
+	 * @throws IllegalArgumentException if {@code re} or {@code im} is shorter than
+	 *                                  the degree of {@code p}
+	 * @see #solve(Polynomial, Workspace, double[], double[])
+	 */
+	public int solve(Polynomial p, double[] re, double[] im) {
+		return solve(p, workspaces.get(), re, im);
+	}
+
+	/**
+	 * Stores the real and imaginary parts of the roots of {@code p} in the first
+	 * {@code p.degree()} elements of {@code re} and {@code im}. The zero
+	 * polynomial and the nonzero constant polynomials are taken to have no roots.
+	 *
+	 * @param p  the polynomial to find the roots of
+	 * @param ws the workspace to use
+	 * @param re the array to store the real parts of the roots in
+	 * @param im the array to store the imaginary parts of the roots in
+	 * @return the number of roots stored, which is the degree of {@code p}
+	 * @throws IllegalArgumentException if {@code re} or {@code im} is shorter than
+	 *                                  the degree of {@code p}
+	 */
+	public int solve(Polynomial p, Workspace ws, double[] re, double[] im) {
+		int n = p.degree();
+		if (re.length < n || im.length < n) {
+			throw new IllegalArgumentException();
+		}
+		roots(p, ws);
+		System.arraycopy(ws.zr, 0, re, 0, n);
+		System.arraycopy(ws.zi, 0, im, 0, n);
+		return n;
+	}
+
+	/**
+	 * Stores the real roots of {@code p} in ascending order in {@code out}, using a
+	 * workspace that belongs to the calling thread.
+	 *
+	 * @return the number of real roots stored
+	 * @throws IllegalArgumentException if {@code out} is shorter than the degree
+	 *                                  of {@code p}
+	 */
+	public int realRoots(Polynomial p, double[] out) {
+		return realRoots(p, workspaces.get(), out);
+	}
+
+	/**
+	 * Stores the real roots of {@code p} in ascending order in {@code out},
+	 * repeated according to multiplicity, as classified by
+	 * {@link #solve(Polynomial, Workspace, double[], double[])}.
+	 *
+	 * @param p   the polynomial to find the real roots of
+	 * @param ws  the workspace to use
+	 * @param out the array to store the real roots in
+	 * @return the number of real roots stored
+	 * @throws IllegalArgumentException if {@code out} is shorter than the degree
+	 *                                  of {@code p}
+	 */
+	public int realRoots(Polynomial p, Workspace ws, double[] out) {
+		int n = p.degree();
+		if (out.length < n) {
+			throw new IllegalArgumentException();
+		}
+		roots(p, ws);
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			if (ws.zi[i] == 0) {
+				out[count++] = ws.zr[i];
+			}
+		}
+		Arrays.sort(out, 0, count);
+		return count;
+	}
+
+	/**
+	 * Finds the roots of every polynomial in {@code ps} in parallel on the pool of
+	 * this root finder. The roots of {@code ps[i]} are stored in {@code re} and
+	 * {@code im} starting at the sum of the degrees of {@code ps[0]} to
+	 * {@code ps[i - 1]}.
+	 *
+	 * @param ps the polynomials to find the roots of
+	 * @param re the array to store the real parts of the roots in
+	 * @param im the array to store the imaginary parts of the roots in
+	 * @return the total number of roots stored, which is the sum of the degrees
+	 * @throws IllegalArgumentException if {@code re} or {@code im} is shorter than
+	 *                                  the sum of the degrees
+	 */
+	public int solveAll(Polynomial[] ps, double[] re, double[] im) {
+		int[] offsets = new int[ps.length + 1];
+		for (int i = 0; i < ps.length; i++) {
+			offsets[i + 1] = offsets[i] + ps[i].degree();
+		}
+		int total = offsets[ps.length];
+		if (re.length < total || im.length < total) {
+			throw new IllegalArgumentException();
+		}
+		pool.invoke(new BatchTask(ps, offsets, re, im, 0, ps.length));
+		return total;
+	}
+
+	private final class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Polynomial[] ps;
+		private final int[] offsets;
+		private final double[] re;
+		private final double[] im;
+		private final int lo, hi;
+
+		BatchTask(Polynomial[] ps, int[] offsets, double[] re, double[] im, int lo, int hi) {
+			this.ps = ps;
+			this.offsets = offsets;
+			this.re = re;
+			this.im = im;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > BATCH) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BatchTask(ps, offsets, re, im, lo, mid), new BatchTask(ps, offsets, re, im, mid, hi));
+				return;
+			}
+			Workspace ws = workspaces.get();
+			for (int i = lo; i < hi; i++) {
+				int n = roots(ps[i], ws);
+				System.arraycopy(ws.zr, 0, re, offsets[i], n);
+				System.arraycopy(ws.zi, 0, im, offsets[i], n);
+			}
+		}
+	}
+
+	/**
+	 * Stores the roots of {@code p} in {@code ws.zr} and {@code ws.zi} and returns
+	 * their number.
+	 */
+	private int roots(Polynomial p, Workspace ws) {
+		double[] c = p.coeffs();
+		int n = p.degree();
+		if (n == 0) {
+			return 0;
+		}
+		ws.ensure(n);
+		double[] zr = ws.zr, zi = ws.zi;
+		// the leading coefficient of a polynomial of positive degree is nonzero
+		int z = 0;
+		while (c[z] == 0) {
+			zr[z] = 0;
+			zi[z] = 0;
+			z++;
+		}
+		int m = n - z;
+		System.arraycopy(c, z, ws.a, 0, m + 1);
+		double[] a = ws.a;
+		if (m == 1) {
+			zr[z] = -a[0] / a[1];
+			zi[z] = 0;
+		} else if (m == 2) {
+			quadratic(a[2], a[1], a[0], zr, zi, z);
+		} else if (m > 2) {
+			aberth(ws, m, z);
+			for (int i = z; i < n; i++) {
+				polish(ws, m, i);
+				if (zi[i] != 0 && (Math.abs(zi[i]) <= tolerance * Math.abs(zr[i]) || !newtonCorrection(ws, m, zr[i], 0))) {
+					zi[i] = 0;
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Stores the roots of {@code a x^2 + b x + c}, where {@code a} and {@code c}
+	 * are nonzero, at index {@code i} and {@code i + 1}.
+	 */
+	private static void quadratic(double a, double b, double c, double[] zr, double[] zi, int i) {
+		double disc = b * b - 4 * a * c;
+		if (disc >= 0) {
+			// avoids cancellation between -b and the square root
+			double q = -0.5 * (b + Math.copySign(Math.sqrt(disc), b));
+			zr[i] = q / a;
+			zr[i + 1] = c / q;
+			zi[i] = 0;
+			zi[i + 1] = 0;
+		} else {
+			zr[i] = zr[i + 1] = -b / (2 * a);
+			zi[i] = Math.abs(Math.sqrt(-disc) / (2 * a));
+			zi[i + 1] = -zi[i];
+		}
+	}
+
+	/**
+	 * Runs the Aberth-Ehrlich iteration for the polynomial with coefficients
+	 * {@code ws.a[0..m]}, storing the roots at index {@code off} of {@code ws.zr}
+	 * and {@code ws.zi}.
+	 */
+	private void aberth(Workspace ws, int m, int off) {
+		double[] a = ws.a, zr = ws.zr, zi = ws.zi;
+		boolean[] done = ws.done;
+
+		// starting points on a circle whose radius is the geometric mean of the
+		// magnitudes of the roots, rotated off the real axis
+		double radius = Math.pow(Math.abs(a[0] / a[m]), 1.0 / m);
+		for (int k = 0; k < m; k++) {
+			double theta = 2 * Math.PI * k / m + 0.4;
+			zr[off + k] = radius * Math.cos(theta);
+			zi[off + k] = radius * Math.sin(theta);
+			done[off + k] = false;
+		}
+
+		int remaining = m;
+		for (int iter = 0; iter < MAX_ITERATIONS && remaining > 0; iter++) {
+			for (int i = off; i < off + m; i++) {
+				if (done[i]) {
+					continue;
+				}
+				double x = zr[i], y = zi[i];
+				if (!newtonCorrection(ws, m, x, y)) {
+					done[i] = true;
+					remaining--;
+					continue;
+				}
+				// (nr, ni) = p'(z) / p(z)
+				double nr = ws.pr, ni = ws.pi;
+
+				// (sr, si) = sum of 1 / (z_i - z_j) over j != i
+				double sr = 0, si = 0;
+				for (int j = off; j < off + m; j++) {
+					if (j != i) {
+						double ur = x - zr[j], ui = y - zi[j];
+						double d = ur * ur + ui * ui;
+						sr += ur / d;
+						si -= ui / d;
+					}
+				}
+
+				// w = 1 / (p'/p - s)
+				double vr = nr - sr, vi = ni - si;
+				double d = vr * vr + vi * vi;
+				if (!(d > 0) || Double.isInfinite(d)) {
+					continue;
+				}
+				double wr = vr / d, wi = -vi / d;
+				zr[i] = x - wr;
+				zi[i] = y - wi;
+				if (Math.hypot(wr, wi) <= tolerance * Math.hypot(zr[i], zi[i])) {
+					done[i] = true;
+					remaining--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies up to {@code POLISH_STEPS} Newton steps to root {@code i}, keeping
+	 * each step only if it reduces the magnitude of the polynomial.
+	 */
+	private static void polish(Workspace ws, int m, int i) {
+		double[] zr = ws.zr, zi = ws.zi;
+		for (int step = 0; step < POLISH_STEPS; step++) {
+			double x = zr[i], y = zi[i];
+			if (!newtonCorrection(ws, m, x, y)) {
+				return;
+			}
+			double size = ws.bound; // magnitude of p(z) relative to its bound
+			double d = ws.pr * ws.pr + ws.pi * ws.pi;
+			if (!(d > 0) || Double.isInfinite(d)) {
+				return;
+			}
+			double nx = x - ws.pr / d, ny = y + ws.pi / d;
+			if (!newtonCorrection(ws, m, nx, ny)) {
+				zr[i] = nx;
+				zi[i] = ny;
+				return;
+			}
+			if (!(ws.bound < size)) {
+				return;
+			}
+			zr[i] = nx;
+			zi[i] = ny;
+		}
+	}
+
+	/**
+	 * Evaluates the polynomial with coefficients {@code ws.a[0..m]} at
+	 * {@code x + iy}. Returns {@code false} if its value is within the rounding
+	 * error of Horner's method. Otherwise stores {@code p'(z) / p(z)} in
+	 * {@code (ws.pr, ws.pi)} and {@code |p(z)| / bound} in {@code ws.bound}, where
+	 * {@code bound} is the rounding error, and returns {@code true}.
+	 *
+	 * <p>
+	 * Outside of the unit circle the reversed polynomial {@code q(y) = y^m p(1 / y)}
+	 * is evaluated at {@code 1 / z} instead so that the powers of {@code z} do not
+	 * overflow, using {@code p'(z) / p(z) = (m - w q'(w) / q(w)) w} with
+	 * {@code w = 1 / z}.
+	 */
+	private static boolean newtonCorrection(Workspace ws, int m, double x, double y) {
+		double r2 = x * x + y * y;
+		boolean reversed = r2 > 1;
+		double ex = x, ey = y;
+		if (reversed) {
+			ex = x / r2;
+			ey = -y / r2;
+		}
+		ws.eval(m, ex, ey, reversed);
+		double pr = ws.pr, pi = ws.pi;
+		double size = Math.hypot(pr, pi);
+		if (size <= ws.bound) {
+			return false;
+		}
+		// (qr, qi) = derivative / value at (ex, ey)
+		double d = pr * pr + pi * pi;
+		double qr = (ws.dr * pr + ws.di * pi) / d;
+		double qi = (ws.di * pr - ws.dr * pi) / d;
+		if (reversed) {
+			// (m - w q'/q) w
+			double tr = m - (ex * qr - ey * qi);
+			double ti = -(ex * qi + ey * qr);
+			qr = tr * ex - ti * ey;
+			qi = tr * ey + ti * ex;
+		}
+		ws.bound = size / ws.bound;
+		ws.pr = qr;
+		ws.pi = qi;
+		return true;
+	}
+
+	/**
+	 * Solves batches of random polynomials of several degrees and reports the
+	 * number of polynomials solved per second, and the largest value of
+	 * {@code |p(z)|} at a computed root relative to the size of the coefficients.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		Random rng = new Random(1);
+		PolynomialRoots roots = new PolynomialRoots();
+		System.out.println("degree   polys/s   residual");
+		for (int n : new int[] { 3, 5, 10, 20, 50, 100 }) {
+			int count = 20000 / n;
+			Polynomial[] ps = new Polynomial[count];
+			for (int k = 0; k < count; k++) {
+				double[] c = new double[n + 1];
+				for (int i = 0; i <= n; i++) {
+					c[i] = rng.nextGaussian();
+				}
+				ps[k] = new Polynomial(c);
+			}
+			double[] re = new double[count * n];
+			double[] im = new double[count * n];
+			long best = Long.MAX_VALUE;
+			for (int rep = 0; rep < 5; rep++) {
+				long start = System.nanoTime();
+				roots.solveAll(ps, re, im);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			double residual = 0;
+			for (int k = 0; k < count; k++) {
+				double[] c = ps[k].coeffs();
+				for (int j = k * n; j < (k + 1) * n; j++) {
+					double pr = 0, pi = 0, e = 0, r = Math.hypot(re[j], im[j]);
+					for (int i = n; i >= 0; i--) {
+						double t = pr * re[j] - pi * im[j] + c[i];
+						pi = pr * im[j] + pi * re[j];
+						pr = t;
+						e = e * r + Math.abs(c[i]);
+					}
+					residual = Math.max(residual, Math.hypot(pr, pi) / e);
+				}
+			}
+			System.out.printf("%6d %9.0f %10.2e%n", n, count / (best / 1e9), residual);
+		}
+	}
+}
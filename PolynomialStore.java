@@ -0,0 +1,523 @@
+package a4;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+
+/**
+ * A file of polynomials that is memory-mapped, so that the polynomials can be
+ * evaluated directly from the file without first being read into
+ * {@code Polynomial} objects.
+ *
+ * <p>
+ * Opening a store maps the file and checks its header, which takes the same
+ * time whatever the number of polynomials; the operating system then pages in
+ * only the parts of the file that are used. A file has the following layout,
+ * with all numbers stored little-endian:
+ *
+ * <ul>
+ * <li>the magic number {@code 0x31534C50} ("PLS1")
+ * <li>the largest number of coefficients of any polynomial, as an {@code int}
+ * <li>the number of polynomials {@code n}, as a {@code long}
+ * <li>the file offset of the index, as a {@code long}
+ * <li>the number of pairs the index has room for, as a {@code long}
+ * <li>the coefficients of each polynomial as {@code double}s, lowest power
+ * first
+ * <li>the index: {@code n} pairs of {@code long} file offsets; polynomial
+ * {@code i} is stored from the first offset of pair {@code i} up to the second
+ * </ul>
+ *
+ * <p>
+ * The index is followed by room for more pairs, and polynomials appended later
+ * are stored after that room, so the index is not always at the end of the
+ * file.
+ *
+ * <p>
+ * Every record starts at a multiple of eight bytes. The coefficients are mapped
+ * in overlapping windows of {@code SEGMENT} bytes, each extended by the length
+ * of the largest record, so that every record lies inside a single window and
+ * files larger than two gigabytes can be read.
+ *
+ * <p>
+ * Appending never overwrites anything the header refers to. The new records
+ * are written at the end of the file, and their pairs are written into the room
+ * after the index; if there is not enough room, the whole index is copied after
+ * the new records with room for twice as many pairs. The header is rewritten
+ * only once the records and the index are on the storage device, so a file that
+ * is cut short by a crash during an append still holds the polynomials it held
+ * before. Because the room doubles, the index is copied only when the number of
+ * polynomials has doubled, and the old copies together with the unused room
+ * take less than three times the space of the index itself, {@code 48 n}
+ * bytes. A store may be read by several threads at once, but not while it is
+ * being appended to.
+ *
+ */
+public final class PolynomialStore implements Closeable {
+
+	private static final int MAGIC = 0x31534C50;
+	private static final int HEADER = 32;
+	private static final int ENTRY = 2 * Long.BYTES;
+	private static final int SEGMENT_BITS = 30;
+	private static final long SEGMENT = 1L << SEGMENT_BITS;
+
+	/**
+	 * The largest number of coefficients of a polynomial that can be stored,
+	 * limited by the size of a mapped window.
+	 */
+	private static final int MAX_LENGTH = (int) ((Integer.MAX_VALUE - SEGMENT) / Double.BYTES);
+
+	private final FileChannel ch;
+	private final boolean writable;
+	private int maxLength; // coefficients of the longest record
+	private int n; // number of polynomials
+	private long indexOffset;
+	private long capacity; // pairs the index has room for
+	private long end; // where the next records are written
+	private ByteBuffer[] segments;
+	private ByteBuffer index;
+
+	private PolynomialStore(FileChannel ch, boolean writable) throws IOException {
+		this.ch = ch;
+		this.writable = writable;
+		ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (ch.read(header, header.position()) < 0) {
+				break;
+			}
+		}
+		if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+			throw new IOException("Not a polynomial store.");
+		}
+		int maxLength = header.getInt(4);
+		long n = header.getLong(8);
+		long indexOffset = header.getLong(16);
+		long capacity = header.getLong(24);
+		if (maxLength < 0 || maxLength > MAX_LENGTH || n < 0 || n > capacity || indexOffset < HEADER
+				|| capacity * ENTRY > Integer.MAX_VALUE || indexOffset + n * ENTRY > ch.size()) {
+			throw new IOException("Corrupt polynomial store header.");
+		}
+		this.map(maxLength, (int) n, indexOffset, capacity);
+	}
+
+	/**
+	 * Creates an empty store in the specified file, replacing the file if it
+	 * already exists, and opens it for reading and appending.
+	 *
+	 * @param path the file to create
+	 * @return the new store
+	 * @throws IOException if the file cannot be written
+	 */
+	public static PolynomialStore create(Path path) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(MAGIC).putInt(0).putLong(0).putLong(HEADER).putLong(0).flip();
+		try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (b.hasRemaining()) {
+				out.write(b);
+			}
+		}
+		return open(path, true);
+	}
+
+	/**
+	 * Opens the store in the specified file for reading. The file is
+	 * memory-mapped, so opening does not read any polynomials.
+	 *
+	 * @param path the file to open
+	 * @return the store
+	 * @throws IOException if the file cannot be read or is not a polynomial store
+	 */
+	public static PolynomialStore open(Path path) throws IOException {
+		return open(path, false);
+	}
+
+	/**
+	 * Opens the store in the specified file for reading and, if {@code writable}
+	 * is true, appending.
+	 *
+	 * @param path     the file to open
+	 * @param writable whether polynomials may be appended to the store
+	 * @return the store
+	 * @throws IOException if the file cannot be opened or is not a polynomial
+	 *                     store
+	 */
+	public static PolynomialStore open(Path path, boolean writable) throws IOException {
+		FileChannel ch = writable ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new PolynomialStore(ch, writable);
+		} catch (IOException | RuntimeException e) {
+			ch.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of polynomials in this store.
+	 *
+	 * @return the number of polynomials
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Returns the degree of polynomial {@code i}.
+	 *
+	 * @param i the index of the polynomial
+	 * @return the degree of polynomial {@code i}
+	 * @throws IllegalArgumentException if {@code i} is out of range
+	 */
+	public int degree(int i) {
+		this.check(i);
+		return this.length(i) - 1;
+	}
+
+	/**
+	 * Returns the coefficient of x raised to the power {@code k} in polynomial
+	 * {@code i}.
+	 *
+	 * @param i the index of the polynomial
+	 * @param k the power of x
+	 * @return the coefficient of x raised to the power {@code k}
+	 * @throws IllegalArgumentException if {@code i} is out of range or {@code k}
+	 *                                  is not between 0 and the degree of the
+	 *                                  polynomial
+	 */
+	public double getCoeffAt(int i, int k) {
+		this.check(i);
+		if (k < 0 || k >= this.length(i)) {
+			throw new IllegalArgumentException();
+		}
+		long off = this.offset(i);
+		return this.segment(off).getDouble(position(off) + k * Double.BYTES);
+	}
+
+	/**
+	 * Evaluates polynomial {@code i} at {@code x}, reading the coefficients from
+	 * the mapped file. The result is the same as
+	 * {@code get(i).at(x)}.
+	 *
+	 * @param i the index of the polynomial
+	 * @param x the value to evaluate the polynomial at
+	 * @return the value of polynomial {@code i} at {@code x}
+	 * @throws IllegalArgumentException if {@code i} is out of range
+	 */
+	public double at(int i, double x) {
+		this.check(i);
+		long off = this.offset(i);
+		ByteBuffer seg = this.segment(off);
+		int lo = position(off);
+		int p = lo + (this.length(i) - 1) * Double.BYTES;
+		double sum = seg.getDouble(p);
+		for (p -= Double.BYTES; p >= lo; p -= Double.BYTES) {
+			sum = sum * x + seg.getDouble(p);
+		}
+		return sum;
+	}
+
+	/**
+	 * Evaluates polynomial {@code i} at every element of {@code xs}, storing the
+	 * value at {@code xs[j]} in {@code out[j]}. {@code out} may be the same array
+	 * as {@code xs}. The coefficients are read from the mapped file once.
+	 *
+	 * @param i   the index of the polynomial
+	 * @param xs  the values to evaluate the polynomial at
+	 * @param out the array to store the values in
+	 * @throws IllegalArgumentException if {@code i} is out of range or
+	 *                                  {@code out.length < xs.length}
+	 */
+	public void at(int i, double[] xs, double[] out) {
+		this.check(i);
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException();
+		}
+		this.get(i).at(xs, out);
+	}
+
+	/**
+	 * Returns polynomial {@code i} as a new {@code Polynomial} object.
+	 *
+	 * @param i the index of the polynomial
+	 * @return polynomial {@code i}
+	 * @throws IllegalArgumentException if {@code i} is out of range
+	 */
+	public Polynomial get(int i) {
+		this.check(i);
+		long off = this.offset(i);
+		double[] c = new double[this.length(i)];
+		this.segment(off).slice(position(off), c.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+				.asDoubleBuffer().get(c);
+		return Polynomial.trimmed(c);
+	}
+
+	/**
+	 * Returns a list view of this store. Each call to {@code get} on the list
+	 * reads the polynomial from the file into a new {@code Polynomial} object, so
+	 * only the polynomials that are used are ever created. The list grows when
+	 * polynomials are appended to this store.
+	 *
+	 * @return an unmodifiable list of the polynomials in this store
+	 */
+	public List<Polynomial> asList() {
+		class View extends AbstractList<Polynomial> implements RandomAccess {
+			@Override
+			public Polynomial get(int i) {
+				if (i < 0 || i >= n) {
+					throw new IndexOutOfBoundsException(i);
+				}
+				return PolynomialStore.this.get(i);
+			}
+
+			@Override
+			public int size() {
+				return n;
+			}
+		}
+		return new View();
+	}
+
+	/**
+	 * Appends the specified polynomials to the end of this store and writes them
+	 * to the file. The new records are written at the end of the file and their
+	 * pairs into the room after the index, or, if there is not enough room, into a
+	 * copy of the index with twice the room after the new records. The header is
+	 * written last, after they have been forced to the storage device.
+	 *
+	 * @param ps the polynomials to append
+	 * @return the index of the first appended polynomial
+	 * @throws IOException              if this store was not opened for
+	 *                                  appending or the file cannot be written
+	 * @throws IllegalArgumentException if a polynomial has more than
+	 *                                  {@code MAX_LENGTH} coefficients or the
+	 *                                  store would hold more polynomials than its
+	 *                                  index can address
+	 */
+	public int append(Polynomial... ps) throws IOException {
+		if (!writable) {
+			throw new IOException("Polynomial store is not open for appending.");
+		}
+		int first = n;
+		long count = (long) n + ps.length;
+		if (count * ENTRY > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException();
+		}
+		int maxLength = this.maxLength;
+		for (Polynomial p : ps) {
+			if (p.degree() + 1 > MAX_LENGTH) {
+				throw new IllegalArgumentException();
+			}
+			maxLength = Math.max(maxLength, p.degree() + 1);
+		}
+		long[] offsets = new long[ps.length + 1];
+		ByteBuffer b = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		long pos = this.end;
+		for (int j = 0; j < ps.length; j++) {
+			offsets[j] = pos;
+			double[] a = ps[j].coeffs();
+			for (int k = 0, m = ps[j].degree() + 1; k < m; k++) {
+				pos = put(b, pos, a[k]);
+			}
+		}
+		offsets[ps.length] = pos;
+		long newIndex = indexOffset;
+		long capacity = this.capacity;
+		if (count > capacity) {
+			// copy the index after the new records, with room to double
+			newIndex = pos;
+			capacity = Math.max(count, Math.min(2 * capacity, Integer.MAX_VALUE / ENTRY));
+			for (int i = 0; i < first; i++) {
+				pos = put(b, pos, this.offset(i));
+				pos = put(b, pos, this.end(i));
+			}
+		} else {
+			// the header does not refer to the room after the index yet
+			flush(b, pos);
+			pos = indexOffset + (long) first * ENTRY;
+		}
+		for (int j = 0; j < ps.length; j++) {
+			pos = put(b, pos, offsets[j]);
+			pos = put(b, pos, offsets[j + 1]);
+		}
+		flush(b, pos);
+		ch.force(false);
+
+		b.clear();
+		b.putInt(MAGIC).putInt(maxLength).putLong(count).putLong(newIndex).putLong(capacity).flip();
+		while (b.hasRemaining()) {
+			ch.write(b, b.position());
+		}
+		ch.force(false);
+		this.map(maxLength, (int) count, newIndex, capacity);
+		return first;
+	}
+
+	/**
+	 * Closes the file of this store. The mappings stay valid until they are
+	 * garbage collected, but this store must not be used after it is closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		ch.close();
+	}
+
+	/**
+	 * Maps the index and the coefficients described by a header. Records are
+	 * appended in file order, so the last record ends the coefficients.
+	 */
+	private void map(int maxLength, int n, long indexOffset, long capacity) throws IOException {
+		ByteBuffer index = ch.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) n * ENTRY)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		long records = n == 0 ? HEADER : index.getLong(n * ENTRY - Long.BYTES);
+		if (n > 0 && (index.getLong(0) < HEADER || records > ch.size())) {
+			throw new IOException("Corrupt polynomial store index.");
+		}
+		int count = (int) ((records + SEGMENT - 1) >>> SEGMENT_BITS);
+		ByteBuffer[] segments = new ByteBuffer[count];
+		for (int s = 0; s < count; s++) {
+			long start = (long) s << SEGMENT_BITS;
+			long len = Math.min(records - start, SEGMENT + (long) maxLength * Double.BYTES);
+			segments[s] = ch.map(FileChannel.MapMode.READ_ONLY, start, len).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		this.index = index;
+		this.segments = segments;
+		this.maxLength = maxLength;
+		this.n = n;
+		this.indexOffset = indexOffset;
+		this.capacity = capacity;
+		this.end = Math.max(records, indexOffset + capacity * ENTRY);
+	}
+
+	/**
+	 * Writes {@code v} at file offset {@code pos} through the buffer {@code b},
+	 * which holds the bytes before {@code pos} that are not yet written.
+	 */
+	private long put(ByteBuffer b, long pos, double v) throws IOException {
+		if (!b.hasRemaining()) {
+			flush(b, pos);
+		}
+		b.putDouble(v);
+		return pos + Double.BYTES;
+	}
+
+	private long put(ByteBuffer b, long pos, long v) throws IOException {
+		if (!b.hasRemaining()) {
+			flush(b, pos);
+		}
+		b.putLong(v);
+		return pos + Long.BYTES;
+	}
+
+	private void flush(ByteBuffer b, long pos) throws IOException {
+		b.flip();
+		long start = pos - b.remaining();
+		while (b.hasRemaining()) {
+			start += ch.write(b, start);
+		}
+		b.clear();
+	}
+
+	private void check(int i) {
+		if (i < 0 || i >= n) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	private long offset(int i) {
+		return index.getLong(i * ENTRY);
+	}
+
+	private long end(int i) {
+		return index.getLong(i * ENTRY + Long.BYTES);
+	}
+
+	/**
+	 * Returns the number of coefficients of polynomial {@code i}.
+	 */
+	private int length(int i) {
+		return (int) ((this.end(i) - this.offset(i)) / Double.BYTES);
+	}
+
+	private ByteBuffer segment(long off) {
+		return segments[(int) (off >>> SEGMENT_BITS)];
+	}
+
+	private static int position(long off) {
+		return (int) (off & (SEGMENT - 1));
+	}
+
+	/**
+	 * Writes a million polynomials of degree 5 to a temporary store, then times
+	 * opening the store and evaluating every polynomial from the mapping against
+	 * building the same {@code Polynomial} objects from a text file, and reports
+	 * the milliseconds taken by each.
+	 *
+	 * @param args not used
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int size = 1 << 20, degree = 5;
+		Random rng = new Random(1);
+		Polynomial[] ps = new Polynomial[size];
+		StringBuilder text = new StringBuilder();
+		for (int j = 0; j < size; j++) {
+			double[] a = new double[degree + 1];
+			for (int i = 0; i <= degree; i++) {
+				a[i] = rng.nextDouble() + 0.5;
+				text.append(a[i]).append(i < degree ? ' ' : '\n');
+			}
+			ps[j] = new Polynomial(a);
+		}
+		Path file = Files.createTempFile("polynomials", ".pls");
+		Path txt = Files.createTempFile("polynomials", ".txt");
+		try {
+			try (PolynomialStore store = PolynomialStore.create(file)) {
+				store.append(ps);
+			}
+			Files.writeString(txt, text);
+
+			long start = System.nanoTime();
+			List<String> lines = Files.readAllLines(txt);
+			Polynomial[] parsed = new Polynomial[lines.size()];
+			for (int j = 0; j < parsed.length; j++) {
+				String[] f = lines.get(j).split(" ");
+				double[] a = new double[f.length];
+				for (int i = 0; i < f.length; i++) {
+					a[i] = Double.parseDouble(f[i]);
+				}
+				parsed[j] = new Polynomial(a);
+			}
+			long load = System.nanoTime() - start;
+			double s = 0;
+			for (Polynomial p : parsed) {
+				s += p.at(0.5);
+			}
+			long parse = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			double t = 0;
+			try (PolynomialStore store = PolynomialStore.open(file)) {
+				long open = System.nanoTime() - start;
+				for (int j = 0; j < store.size(); j++) {
+					t += store.at(j, 0.5);
+				}
+				long mapped = System.nanoTime() - start;
+				System.out.printf("text: load %.1f ms, load and evaluate %.1f ms%n", load / 1e6, parse / 1e6);
+				System.out.printf("store: open %.3f ms, open and evaluate %.1f ms%s%n", open / 1e6, mapped / 1e6,
+						s == t ? "" : "  results differ");
+			}
+		} finally {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(txt);
+		}
+	}
+}
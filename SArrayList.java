@@ -3,6 +3,8 @@ package a6;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * An array-based implementation of a {@code SList}.
@@ -56,12 +58,60 @@ public class SArrayList<E> implements SList<E> {
 	public void add(E elem) {
 		// do we need to resize the array?
 		if (this.size() == this.arr.length) {
-			this.arr = Arrays.copyOf(this.arr, this.arr.length * 2);
+			this.ensureCapacity(this.size + 1);
 		}
 		this.arr[this.size] = elem;
 		this.size++;
 	}
 
+	/**
+	 * Grows the array, if necessary, so that it can hold at least
+	 * {@code minCapacity} elements. The array at least doubles in length when it
+	 * grows, so that adding elements one at a time takes amortized constant time.
+	 * 
+	 * @param minCapacity the number of elements to make room for
+	 */
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity > this.arr.length) {
+			int c = Math.max(minCapacity, Math.max(DEFAULT_CAPACITY, this.arr.length * 2));
+			this.arr = Arrays.copyOf(this.arr, c);
+		}
+	}
+
+	/**
+	 * Adds all of the elements of {@code other} to the end of this list. The
+	 * array grows at most once, and if {@code other} is also a
+	 * {@code SArrayList} the elements are copied with a single
+	 * {@code System.arraycopy}.
+	 * 
+	 * @param other the list whose elements are added
+	 */
+	@Override
+	public void addAll(SList<? extends E> other) {
+		int n = other.size();
+		this.ensureCapacity(this.size + n);
+		if (other instanceof SArrayList<?>) {
+			// read the source array after growing, in case other is this list
+			System.arraycopy(((SArrayList<?>) other).arr, 0, this.arr, this.size, n);
+		} else {
+			Iterator<? extends E> iter = other.iterator();
+			for (int i = 0; i < n; i++) {
+				this.arr[this.size + i] = iter.next();
+			}
+		}
+		this.size += n;
+	}
+
+	/**
+	 * Returns an array containing the elements of this list in order.
+	 * 
+	 * @return a new array holding the elements of this list
+	 */
+	@Override
+	public Object[] toArray() {
+		return Arrays.copyOf(this.arr, this.size);
+	}
+
 	/**
 	 * Throws an {@code IndexOutOfBoundsException} if index is less than 0 or
 	 * greater than {@code this.size - 1}.
@@ -199,7 +249,8 @@ public class SArrayList<E> implements SList<E> {
 			if (!this.hasNext()) {
 				throw new NoSuchElementException();
 			}
-			E e = SArrayList.this.get(this.next);
+			@SuppressWarnings("unchecked")
+			E e = (E) SArrayList.this.arr[this.next];
 			this.prev = this.next;
 			this.next++;
 			return e;
@@ -207,17 +258,95 @@ public class SArrayList<E> implements SList<E> {
 
 	}
 
+	/**
+	 * Returns a spliterator over the elements in this list. The spliterator covers
+	 * a range of indexes of the array and splits by halving the range, so every
+	 * split takes constant time and both halves know their exact sizes.
+	 * 
+	 * @return a spliterator over the elements in this list
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new ArraySpliterator(0, -1);
+	}
+
+	private class ArraySpliterator implements Spliterator<E> {
+		/**
+		 * Index of the next element to visit.
+		 */
+		private int index;
+
+		/**
+		 * One past the index of the last element to visit, or -1 until the
+		 * spliterator is first used, when it is set to the size of the list.
+		 */
+		private int fence;
+
+		ArraySpliterator(int origin, int fence) {
+			this.index = origin;
+			this.fence = fence;
+		}
+
+		private int fence() {
+			if (this.fence < 0) {
+				this.fence = SArrayList.this.size;
+			}
+			return this.fence;
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			int lo = this.index, mid = (lo + this.fence()) >>> 1;
+			if (lo >= mid) {
+				return null;
+			}
+			this.index = mid;
+			return new ArraySpliterator(lo, mid);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (this.index < this.fence()) {
+				action.accept((E) SArrayList.this.arr[this.index++]);
+				return true;
+			}
+			return false;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			Object[] a = SArrayList.this.arr;
+			int hi = this.fence();
+			for (int i = this.index; i < hi; i++) {
+				action.accept((E) a[i]);
+			}
+			this.index = hi;
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.fence() - this.index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
+
 	/**
 	 * Initializes this list by copying the elements from another list. The other
-	 * list is not modified.
+	 * list is not modified. The array is allocated once at the size of the other
+	 * list; see {@link #addAll(SList)}.
 	 * 
 	 * @param other the list to copy
 	 */
 	public SArrayList(SList<E> other) {
-		new SArrayList();
-		for (Iterator<E> iter = other.iterator(); iter.hasNext();) {
-			this.add(iter.next());
-		}
+		this.arr = new Object[Math.max(DEFAULT_CAPACITY, other.size())];
+		this.size = 0;
+		this.addAll(other);
 	}
 
 	/**
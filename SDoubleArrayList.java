@@ -0,0 +1,335 @@
+package a6;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.StringJoiner;
+
+/**
+ * An array-based list of {@code double} values with the operations of
+ * {@code SList}.
+ *
+ * <p>
+ * The values are stored in a {@code double[]} rather than as boxed
+ * {@code Double} objects behind an {@code Object[]}, so the list uses eight
+ * bytes per value instead of about twenty-four, and {@code get} reads the value
+ * directly instead of following a reference. The class does not implement
+ * {@code SList<Double>}, whose methods would box every value; it implements
+ * {@code Iterable<Double>} with an iterator whose {@code nextDouble} method does
+ * not box.
+ *
+ */
+public class SDoubleArrayList implements Iterable<Double> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private double[] arr;
+	private int size;
+
+	/**
+	 * Initializes an empty list.
+	 */
+	public SDoubleArrayList() {
+		this.arr = new double[DEFAULT_CAPACITY];
+		this.size = 0;
+	}
+
+	/**
+	 * Initializes this list to have the specified values.
+	 *
+	 * @param values a comma separated list of values, or an array of values
+	 */
+	public SDoubleArrayList(double... values) {
+		this.arr = Arrays.copyOf(values, values.length);
+		this.size = values.length;
+	}
+
+	/**
+	 * Initializes this list by copying the values from another list. The other
+	 * list is not modified.
+	 *
+	 * @param other the list to copy
+	 */
+	public SDoubleArrayList(SDoubleArrayList other) {
+		this.arr = Arrays.copyOf(other.arr, other.size);
+		this.size = other.size;
+	}
+
+	/**
+	 * Get the number of values in the list.
+	 *
+	 * @return the number of values in the list.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns {@code true} if this list contains no values, {@code false}
+	 * otherwise.
+	 *
+	 * @return {@code true} if this list contains no values, {@code false}
+	 *         otherwise
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Grows the array, if necessary, so that it can hold at least
+	 * {@code minCapacity} values.
+	 */
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity > this.arr.length) {
+			int c = Math.max(minCapacity, Math.max(DEFAULT_CAPACITY, 2 * this.arr.length));
+			this.arr = Arrays.copyOf(this.arr, c);
+		}
+	}
+
+	/**
+	 * Adds the given value to the end of the list.
+	 *
+	 * @param value the value to add
+	 */
+	public void add(double value) {
+		if (this.size == this.arr.length) {
+			this.ensureCapacity(this.size + 1);
+		}
+		this.arr[this.size] = value;
+		this.size++;
+	}
+
+	/**
+	 * Adds all of the specified values to the end of the list, growing the array
+	 * at most once.
+	 *
+	 * @param values the values to add
+	 */
+	public void addAll(double[] values) {
+		this.ensureCapacity(this.size + values.length);
+		System.arraycopy(values, 0, this.arr, this.size, values.length);
+		this.size += values.length;
+	}
+
+	/**
+	 * Throws an {@code IndexOutOfBoundsException} if index is less than 0 or
+	 * greater than {@code this.size - 1}.
+	 *
+	 * @param index an index to validate
+	 * @throws IndexOutOfBoundsException if index is less than 0 or greater than
+	 *                                   {@code this.size - 1}
+	 */
+	private void checkIndex(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException("negative index: " + index);
+		} else if (index >= this.size) {
+			throw new IndexOutOfBoundsException("index out of bounds: " + index + ", size: " + this.size);
+		}
+	}
+
+	/**
+	 * Returns the value at the specified position in the list.
+	 *
+	 * @param index index of the value to return
+	 * @return the value at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	public double get(int index) {
+		this.checkIndex(index);
+		return this.arr[index];
+	}
+
+	/**
+	 * Sets the value at the specified position in the list.
+	 *
+	 * @param index index of the value to set
+	 * @param value value to be stored at the specified position
+	 * @return the value previously at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	public double set(int index, double value) {
+		this.checkIndex(index);
+		double old = this.arr[index];
+		this.arr[index] = value;
+		return old;
+	}
+
+	/**
+	 * Returns an array containing the values of this list in order.
+	 *
+	 * @return a new array holding the values of this list
+	 */
+	public double[] toArray() {
+		return Arrays.copyOf(this.arr, this.size);
+	}
+
+	/**
+	 * Shrinks the array of this list to the number of values in the list.
+	 */
+	public void trimToSize() {
+		if (this.arr.length != this.size) {
+			this.arr = Arrays.copyOf(this.arr, this.size);
+		}
+	}
+
+	/**
+	 * Sorts the values of this list into ascending order with
+	 * {@code Arrays.sort}, which puts {@code -0.0} before {@code 0.0} and
+	 * {@code NaN} last.
+	 */
+	public void sort() {
+		Arrays.sort(this.arr, 0, this.size);
+	}
+
+	/**
+	 * Compares this list with another object for equality. This list is equal to
+	 * another {@code SDoubleArrayList} if they have the same size and each value in
+	 * this list is equal to the corresponding value in the other list. Values are
+	 * compared as by {@code Double.equals}, so {@code NaN} is equal to itself and
+	 * {@code 0.0} is not equal to {@code -0.0}.
+	 *
+	 * @param obj the object to compare with this list
+	 * @return true if this list is equal to the specified object
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SDoubleArrayList)) {
+			return false;
+		}
+		SDoubleArrayList other = (SDoubleArrayList) obj;
+		return Arrays.equals(this.arr, 0, this.size, other.arr, 0, other.size);
+	}
+
+	/**
+	 * Returns a hash code for this list, computed from its values in the same way
+	 * as {@code Arrays.hashCode(double[])}.
+	 *
+	 * @return a hash code for this list
+	 */
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = 0; i < this.size; i++) {
+			h = 31 * h + Double.hashCode(this.arr[i]);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns a string representation of this list. The returned string has the
+	 * same format as the string returned by the Standard Library list types.
+	 *
+	 * @return a string representation of this list
+	 */
+	@Override
+	public String toString() {
+		StringJoiner j = new StringJoiner(", ", "[", "]");
+		for (int i = 0; i < this.size; i++) {
+			j.add(String.valueOf(this.arr[i]));
+		}
+		return j.toString();
+	}
+
+	/**
+	 * Returns an iterator over the values in this list. The iterator visits the
+	 * values of this list in order; its {@code nextDouble} method returns them
+	 * without boxing.
+	 *
+	 * @return an iterator over the values in this list
+	 */
+	@Override
+	public PrimitiveIterator.OfDouble iterator() {
+		return new PrimitiveIterator.OfDouble() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < SDoubleArrayList.this.size;
+			}
+
+			@Override
+			public double nextDouble() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return SDoubleArrayList.this.arr[this.next++];
+			}
+		};
+	}
+
+	/**
+	 * Reverses the order of the values in this list.
+	 *
+	 * <p>
+	 * Runs in O(n) time taking only a single pass of the array.
+	 */
+	public void reverse() {
+		double[] a = this.arr;
+		for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+			double tmp = a[i];
+			a[i] = a[j];
+			a[j] = tmp;
+		}
+	}
+
+	/**
+	 * Splits this list into two separate lists at the specified {@code index}.
+	 * After splitting, the returned list contains the values from the start of
+	 * this list up to the value immediately before the specified {@code index}.
+	 * The values from the specified {@code index} to the end of the original list
+	 * remain in this list.
+	 *
+	 * <p>
+	 * Runs in O(n) time with two {@code System.arraycopy} calls.
+	 *
+	 * @param index the index at which to split this list
+	 * @return a new list containing the values from the start of this list up to
+	 *         the value immediately before the specified {@code index}
+	 * @throws IllegalArgumentException if {@code index} is less than zero or
+	 *                                  greater than the size of this list
+	 */
+	public SDoubleArrayList splitback(int index) {
+		if (index < 0 || index > this.size) {
+			throw new IllegalArgumentException();
+		}
+		SDoubleArrayList first = new SDoubleArrayList(Arrays.copyOf(this.arr, index));
+		System.arraycopy(this.arr, index, this.arr, 0, this.size - index);
+		this.size -= index;
+		return first;
+	}
+
+	/**
+	 * Rotates the values of this list {@code m} positions to the right. This list
+	 * is transformed so that the original {@code m} values at the end of the list
+	 * become the first {@code m} values at the front of the list.
+	 *
+	 * <p>
+	 * Runs in O(n) time: the shorter of the two parts is copied aside, the longer
+	 * part is moved with one {@code System.arraycopy}, and the shorter part is
+	 * copied back.
+	 *
+	 * @param m the number of positions to rotate the values of the list
+	 * @throws IllegalArgumentException if m is less than zero
+	 * @throws IllegalArgumentException if m is greater than the size of this list
+	 */
+	public void rotate(int m) {
+		if (m < 0 || m > this.size) {
+			throw new IllegalArgumentException();
+		}
+		int n = this.size;
+		double[] a = this.arr;
+		if (m <= n - m) {
+			double[] tmp = Arrays.copyOfRange(a, n - m, n);
+			System.arraycopy(a, 0, a, m, n - m);
+			System.arraycopy(tmp, 0, a, 0, m);
+		} else {
+			double[] tmp = Arrays.copyOf(a, n - m);
+			System.arraycopy(a, n - m, a, 0, m);
+			System.arraycopy(tmp, 0, a, m, n - m);
+		}
+	}
+}
@@ -2,7 +2,10 @@ package a6;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 /**
  * A linked node-based implementation of a {@code SList}.
@@ -182,6 +185,9 @@ public class SLinkedList<E> implements SList<E> {
 		Node<E> toAdd = new Node<>(elem, null);
 		toAdd.next = this.head;
 		this.head = toAdd;
+		if (this.size == 0) {
+			this.tail = toAdd;
+		}
 		this.size++;
 	}
 
@@ -197,11 +203,11 @@ public class SLinkedList<E> implements SList<E> {
 		}
 		Node<E> toRemove = this.head;
 		this.head = toRemove.next;
+		this.size--;
 		// special case of removing from a list of size 1
 		if (this.size == 0) {
 			this.tail = null;
 		}
-		this.size--;
 		return toRemove.elem;
 	}
 
@@ -300,6 +306,98 @@ public class SLinkedList<E> implements SList<E> {
 
 	}
 
+	/**
+	 * Returns a spliterator over the elements in this list. A linked list cannot
+	 * be split in the middle without walking to it, so the spliterator splits off
+	 * batches from the front instead: each split copies the next batch of
+	 * elements into an array, which splits evenly from then on, and the batches
+	 * grow by {@code BATCH_UNIT} elements per split so that a parallel stream
+	 * soon has work for every thread.
+	 * 
+	 * @return a spliterator over the elements in this list
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new LLSpliterator();
+	}
+
+	private class LLSpliterator implements Spliterator<E> {
+		private static final int BATCH_UNIT = 1 << 10;
+		private static final int MAX_BATCH = 1 << 25;
+
+		/**
+		 * Node holding the next element to visit, or null at the end of the list.
+		 */
+		private Node<E> next;
+
+		/**
+		 * The number of elements left to visit.
+		 */
+		private int remaining;
+
+		/**
+		 * The size of the last batch split off.
+		 */
+		private int batch;
+
+		LLSpliterator() {
+			this.next = SLinkedList.this.head;
+			this.remaining = SLinkedList.this.size;
+			this.batch = 0;
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			if (this.remaining <= 1) {
+				return null;
+			}
+			int n = Math.min(Math.min(this.batch + BATCH_UNIT, MAX_BATCH), this.remaining);
+			Object[] a = new Object[n];
+			Node<E> node = this.next;
+			for (int i = 0; i < n; i++) {
+				a[i] = node.elem;
+				node = node.next;
+			}
+			this.next = node;
+			this.remaining -= n;
+			this.batch = n;
+			return Spliterators.spliterator(a, 0, n, Spliterator.ORDERED);
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (this.remaining == 0) {
+				return false;
+			}
+			E e = this.next.elem;
+			this.next = this.next.next;
+			this.remaining--;
+			action.accept(e);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			Node<E> node = this.next;
+			for (int i = this.remaining; i > 0; i--) {
+				action.accept(node.elem);
+				node = node.next;
+			}
+			this.next = null;
+			this.remaining = 0;
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED;
+		}
+	}
+
 	/**
 	 * Initializes this list by copying the elements from another list. The other
 	 * list is not modified.
@@ -307,10 +405,80 @@ public class SLinkedList<E> implements SList<E> {
 	 * @param other the list to copy
 	 */
 	public SLinkedList(SList<E> other) {
-		new SLinkedList();
-		for (Iterator<E> iter = other.iterator(); iter.hasNext();) {
-			this.add(iter.next());
+		this();
+		this.addAll(other);
+	}
+
+	/**
+	 * Adds all of the elements of {@code other} to the end of this list, linking
+	 * the new nodes directly. {@code other} may be this list, in which case the
+	 * list is appended to itself once.
+	 * 
+	 * @param other the list whose elements are added
+	 */
+	@Override
+	public void addAll(SList<? extends E> other) {
+		int n = other.size();
+		if (n == 0) {
+			return;
+		}
+		Iterator<? extends E> iter = other.iterator();
+		Node<E> first = new Node<>(iter.next(), null);
+		Node<E> last = first;
+		for (int i = 1; i < n; i++) {
+			last.next = new Node<>(iter.next(), null);
+			last = last.next;
+		}
+		if (this.size == 0) {
+			this.head = first;
+		} else {
+			this.tail.next = first;
+		}
+		this.tail = last;
+		this.size += n;
+	}
+
+	/**
+	 * Moves all of the elements of {@code other} to the end of this list by
+	 * linking the head of {@code other} after the tail of this list, leaving
+	 * {@code other} empty. Runs in O(1) time.
+	 * 
+	 * @param other the list whose nodes are moved
+	 * @throws IllegalArgumentException if {@code other} is this list
+	 */
+	public void append(SLinkedList<E> other) {
+		if (other == this) {
+			throw new IllegalArgumentException();
 		}
+		if (other.size == 0) {
+			return;
+		}
+		if (this.size == 0) {
+			this.head = other.head;
+		} else {
+			this.tail.next = other.head;
+		}
+		this.tail = other.tail;
+		this.size += other.size;
+		other.head = null;
+		other.tail = null;
+		other.size = 0;
+	}
+
+	/**
+	 * Returns an array containing the elements of this list in order.
+	 * 
+	 * @return a new array holding the elements of this list
+	 */
+	@Override
+	public Object[] toArray() {
+		Object[] a = new Object[this.size];
+		Node<E> n = this.head;
+		for (int i = 0; i < a.length; i++) {
+			a[i] = n.elem;
+			n = n.next;
+		}
+		return a;
 	}
 
 	/**
@@ -372,8 +540,8 @@ public class SLinkedList<E> implements SList<E> {
 			return beg;
 		}
 		beg.head = this.head;
-		this.head = this.moveTo(index);
 		beg.tail = this.moveTo(index - 1);
+		this.head = beg.tail.next;
 		beg.tail.next = null;
 		this.size = this.size - index;
 		beg.size = index;
@@ -393,6 +561,9 @@ public class SLinkedList<E> implements SList<E> {
 		if (m < 0 || m > this.size) {
 			throw new IllegalArgumentException();
 		}
+		if (m == 0 || m == this.size) {
+			return;
+		}
 		Node<E> n = this.moveTo(this.size - 1 - m);
 		this.tail.next = this.head;
 		this.head = n.next;
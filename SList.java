@@ -1,6 +1,10 @@
 package a6;
 
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A simplified list interface. A list represents a finite collection of
@@ -56,6 +60,38 @@ public interface SList<E> extends Iterable<E> {
 	 */
 	public E set(int index, E elem);
 
+	/**
+	 * Adds all of the elements of {@code other} to the end of this list, in the
+	 * order that {@code other} iterates over them. {@code other} may be this
+	 * list, in which case the list is appended to itself once.
+	 * 
+	 * <p>
+	 * The default implementation calls {@link #add(Object)} once per element;
+	 * implementations should override it to copy in bulk.
+	 * 
+	 * @param other the list whose elements are added
+	 */
+	default public void addAll(SList<? extends E> other) {
+		Iterator<? extends E> iter = other.iterator();
+		for (int i = 0, n = other.size(); i < n; i++) {
+			this.add(iter.next());
+		}
+	}
+
+	/**
+	 * Returns an array containing the elements of this list in order.
+	 * 
+	 * @return a new array holding the elements of this list
+	 */
+	default public Object[] toArray() {
+		Object[] a = new Object[this.size()];
+		Iterator<E> iter = this.iterator();
+		for (int i = 0; i < a.length; i++) {
+			a[i] = iter.next();
+		}
+		return a;
+	}
+
 	/**
 	 * Inserts an element at the specified index of this list. Shifts the element
 	 * currently at that position (if any) and any subsequent elements to the right.
@@ -140,6 +176,38 @@ public interface SList<E> extends Iterable<E> {
 	 * @return an iterator over the elements in this list
 	 */
 	public Iterator<E> iterator();
-	
-	
+
+	/**
+	 * Returns a spliterator over the elements in this list. The default
+	 * implementation wraps {@link #iterator()} in a spliterator that knows the
+	 * size of the list and splits off batches of elements copied into arrays;
+	 * implementations that can split more cheaply should override it.
+	 * 
+	 * @return a spliterator over the elements in this list
+	 */
+	@Override
+	default public Spliterator<E> spliterator() {
+		return Spliterators.spliterator(this.iterator(), this.size(), Spliterator.ORDERED);
+	}
+
+	/**
+	 * Returns a sequential stream of the elements in this list.
+	 * 
+	 * @return a stream of the elements in this list
+	 */
+	default public Stream<E> stream() {
+		return StreamSupport.stream(this.spliterator(), false);
+	}
+
+	/**
+	 * Returns a possibly parallel stream of the elements in this list. How well
+	 * the work divides between threads depends on how evenly and cheaply
+	 * {@link #spliterator()} splits.
+	 * 
+	 * @return a possibly parallel stream of the elements in this list
+	 */
+	default public Stream<E> parallelStream() {
+		return StreamSupport.stream(this.spliterator(), true);
+	}
+
 }
@@ -0,0 +1,483 @@
+package a6;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * A circular array implementation of a {@code SList}.
+ *
+ * <p>
+ * The elements are stored in an array whose length is a power of two, starting
+ * at index {@code head} and wrapping around from the end of the array to the
+ * start; element {@code i} is at index {@code (head + i) & mask}. Adding and
+ * removing at either end and moving the start of the list only change
+ * {@code head} and the size, so {@code addFront}, {@code removeFront},
+ * {@code removeBack} and {@code add} take constant (amortized) time, and
+ * {@code splitback} copies the split-off prefix into the new list with at most
+ * two {@code System.arraycopy} calls without moving the elements that stay.
+ *
+ * <p>
+ * {@code rotate(m)} takes constant time when the array is full, because the
+ * rotated list then occupies the same slots and only {@code head} moves.
+ * Otherwise the free slots lie between the last and the first element, and
+ * rotating moves the shorter of the {@code m} last and {@code size() - m}
+ * first elements across them, taking {@code O(min(m, size() - m))} time.
+ *
+ * @param <E> the type of elements in this list
+ */
+public class SRingList<E> implements SList<E> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] arr; // arr.length is a power of two
+	private int head; // index in arr of element 0
+	private int size;
+
+	/**
+	 * Initializes an empty list.
+	 */
+	public SRingList() {
+		this.arr = new Object[DEFAULT_CAPACITY];
+		this.head = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Initializes this list to have the specified elements.
+	 *
+	 * @param elems a comma separated list of elements, or an array of elements
+	 */
+	@SafeVarargs
+	public SRingList(E... elems) {
+		this.arr = new Object[capacityFor(elems.length)];
+		for (int i = 0; i < elems.length; i++) {
+			this.arr[i] = elems[i];
+		}
+		this.head = 0;
+		this.size = elems.length;
+	}
+
+	/**
+	 * Initializes this list by copying the elements from another list. The other
+	 * list is not modified.
+	 *
+	 * @param other the list to copy
+	 */
+	public SRingList(SList<E> other) {
+		this.arr = new Object[capacityFor(other.size())];
+		this.head = 0;
+		this.size = 0;
+		for (Iterator<E> iter = other.iterator(); iter.hasNext();) {
+			this.add(iter.next());
+		}
+	}
+
+	/**
+	 * Returns the smallest power of two that is at least {@code n} and at least
+	 * {@code DEFAULT_CAPACITY}.
+	 */
+	private static int capacityFor(int n) {
+		if (n > 1 << 30) {
+			throw new OutOfMemoryError("list is too large");
+		}
+		int c = DEFAULT_CAPACITY;
+		while (c < n) {
+			c <<= 1;
+		}
+		return c;
+	}
+
+	/**
+	 * Doubles the length of the array, moving the elements to the start of the new
+	 * array.
+	 */
+	private void grow() {
+		Object[] a = new Object[capacityFor(this.arr.length + 1)];
+		this.copyTo(0, this.size, a, 0);
+		this.arr = a;
+		this.head = 0;
+	}
+
+	/**
+	 * Copies elements {@code from} to {@code from + len - 1} of this list to
+	 * {@code dst} starting at {@code to}, with at most two
+	 * {@code System.arraycopy} calls.
+	 */
+	private void copyTo(int from, int len, Object[] dst, int to) {
+		int start = (this.head + from) & (this.arr.length - 1);
+		int first = Math.min(len, this.arr.length - start);
+		System.arraycopy(this.arr, start, dst, to, first);
+		System.arraycopy(this.arr, 0, dst, to + first, len - first);
+	}
+
+	/**
+	 * Sets elements {@code from} to {@code from + len - 1} of this list to
+	 * {@code null} so that they can be garbage collected.
+	 */
+	private void clear(int from, int len) {
+		int start = (this.head + from) & (this.arr.length - 1);
+		int first = Math.min(len, this.arr.length - start);
+		Arrays.fill(this.arr, start, start + first, null);
+		Arrays.fill(this.arr, 0, len - first, null);
+	}
+
+	private int slot(int index) {
+		return (this.head + index) & (this.arr.length - 1);
+	}
+
+	/**
+	 * Get the number of elements in the list.
+	 *
+	 * @return the number of elements in the list.
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds the given element to the end of the list.
+	 *
+	 * @param elem the element to add
+	 */
+	@Override
+	public void add(E elem) {
+		if (this.size == this.arr.length) {
+			this.grow();
+		}
+		this.arr[this.slot(this.size)] = elem;
+		this.size++;
+	}
+
+	/**
+	 * Adds an element to the front of this list.
+	 *
+	 * @param elem the element to add
+	 */
+	public void addFront(E elem) {
+		if (this.size == this.arr.length) {
+			this.grow();
+		}
+		this.head = (this.head - 1) & (this.arr.length - 1);
+		this.arr[this.head] = elem;
+		this.size++;
+	}
+
+	/**
+	 * Removes the first element of this list and returns the element.
+	 *
+	 * @return the removed element
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E removeFront() {
+		if (this.size == 0) {
+			throw new NoSuchElementException("list is empty");
+		}
+		E e = (E) this.arr[this.head];
+		this.arr[this.head] = null;
+		this.head = (this.head + 1) & (this.arr.length - 1);
+		this.size--;
+		return e;
+	}
+
+	/**
+	 * Removes the last element of this list and returns the element.
+	 *
+	 * @return the removed element
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E removeBack() {
+		if (this.size == 0) {
+			throw new NoSuchElementException("list is empty");
+		}
+		this.size--;
+		int i = this.slot(this.size);
+		E e = (E) this.arr[i];
+		this.arr[i] = null;
+		return e;
+	}
+
+	/**
+	 * Throws an {@code IndexOutOfBoundsException} if index is less than 0 or
+	 * greater than {@code this.size - 1}.
+	 *
+	 * @param index an index to validate
+	 * @throws IndexOutOfBoundsException if index is less than 0 or greater than
+	 *                                   {@code this.size - 1}
+	 */
+	private void checkIndex(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException("negative index: " + index);
+		} else if (index >= this.size) {
+			throw new IndexOutOfBoundsException("index out of bounds: " + index + ", size: " + this.size);
+		}
+	}
+
+	/**
+	 * Returns the element at the specified position in the list.
+	 *
+	 * @param index index of the element to return
+	 * @return the element at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int index) {
+		this.checkIndex(index);
+		return (E) this.arr[this.slot(index)];
+	}
+
+	/**
+	 * Sets the element at the specified position in the list.
+	 *
+	 * @param index index of the element to set
+	 * @param elem  element to be stored at the specified position
+	 * @return the element previously at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public E set(int index, E elem) {
+		this.checkIndex(index);
+		int i = this.slot(index);
+		E old = (E) this.arr[i];
+		this.arr[i] = elem;
+		return old;
+	}
+
+	/**
+	 * Compares this list with another list for equality. This list is equal to
+	 * another {@code SList} if they have the same size and if each element in this
+	 * list is equal to the corresponding element in the other list.
+	 *
+	 * @param obj the object to compare with this list
+	 * @return true if this list is equal to the specified list
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SList<?>)) {
+			return false;
+		}
+		SList<?> other = (SList<?>) obj;
+		if (this.size() != other.size()) {
+			return false;
+		}
+		Iterator<?> i1 = this.iterator();
+		Iterator<?> i2 = other.iterator();
+		while (i1.hasNext()) {
+			if (!Objects.equals(i1.next(), i2.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash code for this list, computed from its elements in the same
+	 * way as {@code java.util.List.hashCode}.
+	 *
+	 * @return a hash code for this list
+	 */
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (E e : this) {
+			h = 31 * h + Objects.hashCode(e);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns a string representation of this list. The returned string has the
+	 * same format as the string returned by the Standard Library list types.
+	 *
+	 * @return a string representation of this list
+	 */
+	@Override
+	public String toString() {
+		StringJoiner j = new StringJoiner(", ", "[", "]");
+		for (int i = 0; i < this.size; i++) {
+			j.add(String.valueOf(this.arr[this.slot(i)]));
+		}
+		return j.toString();
+	}
+
+	/**
+	 * Returns an iterator over the elements in this list. The iterator visits the
+	 * elements of this list in the order that the elements appear in this list.
+	 *
+	 * @return an iterator over the elements in this list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new RingIterator();
+	}
+
+	private class RingIterator implements Iterator<E> {
+		/**
+		 * Index of element to be returned by subsequent call to next.
+		 */
+		private int next;
+
+		RingIterator() {
+			this.next = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next < SRingList.this.size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return (E) SRingList.this.arr[SRingList.this.slot(this.next++)];
+		}
+
+	}
+
+	/**
+	 * Reverses the order of the elements in this list.
+	 *
+	 * <p>
+	 * Runs in O(n) time taking only a single pass of the array.
+	 */
+	@Override
+	public void reverse() {
+		Object[] a = this.arr;
+		for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+			int si = this.slot(i), sj = this.slot(j);
+			Object tmp = a[si];
+			a[si] = a[sj];
+			a[sj] = tmp;
+		}
+	}
+
+	/**
+	 * Splits this list into two separate lists at the specified {@code index}.
+	 * After splitting, the returned list contains the elements from the start of
+	 * this list up to the element immediately before the specified {@code index}.
+	 * The elements from the specified {@code index} to the end of the original list
+	 * remain in this list.
+	 *
+	 * <p>
+	 * Runs in O(index) time: the prefix is copied into the new list with at most
+	 * two {@code System.arraycopy} calls, and the elements that remain are not
+	 * moved.
+	 *
+	 * @param index the index at which to split this list
+	 * @return a new list containing the elements from the start of this list up to
+	 *         the element immediately before the specified {@code index}
+	 * @throws IllegalArgumentException if {@code index} is less than zero or
+	 *                                  greater than the size of this list
+	 */
+	@Override
+	public SRingList<E> splitback(int index) {
+		if (index < 0 || index > this.size) {
+			throw new IllegalArgumentException();
+		}
+		SRingList<E> beg = new SRingList<>();
+		beg.arr = new Object[capacityFor(index)];
+		this.copyTo(0, index, beg.arr, 0);
+		beg.size = index;
+		this.clear(0, index);
+		this.head = this.slot(index);
+		this.size -= index;
+		return beg;
+	}
+
+	/**
+	 * Rotates the elements of this list {@code m} positions to the right. This list
+	 * is transformed so that the original {@code m} elements at the end of the list
+	 * become the first {@code m} elements at the front of the list.
+	 *
+	 * <p>
+	 * Runs in O(1) time if the array is full, and otherwise moves
+	 * {@code min(m, size() - m)} elements across the free slots.
+	 *
+	 * @param m the number of positions to rotate the elements of the list
+	 * @throws IllegalArgumentException if m is less than zero
+	 * @throws IllegalArgumentException if m is greater than the size of this list
+	 */
+	@Override
+	public void rotate(int m) {
+		if (m < 0 || m > this.size) {
+			throw new IllegalArgumentException();
+		}
+		if (m == 0 || m == this.size) {
+			return;
+		}
+		int mask = this.arr.length - 1;
+		if (this.size == this.arr.length) {
+			this.head = (this.head - m) & mask;
+		} else if (m <= this.size - m) {
+			// move the last m elements, last first, to just before the head
+			for (int k = 0; k < m; k++) {
+				int from = this.slot(this.size - 1);
+				this.head = (this.head - 1) & mask;
+				this.arr[this.head] = this.arr[from];
+				this.arr[from] = null;
+			}
+		} else {
+			// move the first size - m elements, first first, to just after the tail
+			for (int k = this.size - m; k > 0; k--) {
+				int to = this.slot(this.size);
+				this.arr[to] = this.arr[this.head];
+				this.arr[this.head] = null;
+				this.head = (this.head + 1) & mask;
+			}
+		}
+	}
+
+	/**
+	 * Times random rotations of a full and of a half-full list, and moving the last
+	 * element to the front, and reports the microseconds per operation.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		int n = 1 << 16, ops = 1000;
+		Random rng = new Random(1);
+		SRingList<Integer> full = new SRingList<>();
+		SRingList<Integer> half = new SRingList<>();
+		for (int i = 0; i < n; i++) {
+			full.add(i);
+			if (i < n / 2 + 1) {
+				half.add(i);
+			}
+		}
+		for (int rep = 0; rep < 3; rep++) {
+			long start = System.nanoTime();
+			for (int k = 0; k < ops; k++) {
+				full.rotate(rng.nextInt(n));
+			}
+			long f = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k = 0; k < ops; k++) {
+				half.rotate(rng.nextInt(half.size()));
+			}
+			long h = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k = 0; k < ops; k++) {
+				full.addFront(full.removeBack());
+			}
+			long d = System.nanoTime() - start;
+			System.out.printf("rotate full %.3f us, rotate half-full %.3f us, removeBack + addFront %.3f us%n",
+					f / 1e3 / ops, h / 1e3 / ops, d / 1e3 / ops);
+		}
+	}
+}
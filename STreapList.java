@@ -0,0 +1,540 @@
+package a6;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A balanced tree implementation of a {@code SList}, using an implicit treap.
+ *
+ * <p>
+ * The elements are stored in the nodes of a binary tree in list order: an
+ * in-order traversal of the tree visits the elements from first to last. Every
+ * node stores the size of its subtree, so the position of a node is found
+ * from the sizes of the left subtrees on the way down and no keys are needed.
+ * Every node also has a random priority, and the tree is kept a heap on the
+ * priorities, which makes its expected height {@code O(log n)} whatever the
+ * sequence of operations.
+ *
+ * <p>
+ * Every operation is built on two primitives that take expected
+ * {@code O(log n)} time: splitting a tree into its first {@code k} elements and
+ * the rest, and merging two trees whose elements should be concatenated. So
+ * {@code get}, {@code set}, {@code add}, {@code add(int, E)},
+ * {@code remove(int)}, {@code splitback}, {@code rotate} and {@code append} all
+ * take expected {@code O(log n)} time. {@code reverse} takes {@code O(1)} time:
+ * it sets a flag on the root meaning that the children of every node in the
+ * subtree are swapped, and the flag is pushed down to the children when a node
+ * is next split or merged.
+ *
+ * @param <E> the type of elements in this list
+ */
+public class STreapList<E> implements SList<E> {
+
+	static class Node<E> {
+		E elem;
+		final int priority;
+		int size;
+		boolean reversed; // the children of every node in this subtree are swapped
+		Node<E> left;
+		Node<E> right;
+
+		/**
+		 * Initializes a node of size one holding the specified element.
+		 *
+		 * @param elem the element
+		 */
+		Node(E elem) {
+			this.elem = elem;
+			this.priority = ThreadLocalRandom.current().nextInt();
+			this.size = 1;
+		}
+	}
+
+	/**
+	 * The root of the tree; will be <code>null</code> for an empty list.
+	 */
+	private Node<E> root;
+
+	/**
+	 * Initialize an empty list.
+	 */
+	public STreapList() {
+		this.root = null;
+	}
+
+	/**
+	 * Initializes this list to have the specified elements.
+	 *
+	 * @param elems a comma separated list of elements, or an array of elements
+	 */
+	@SafeVarargs
+	public STreapList(E... elems) {
+		this.root = null;
+		for (int i = 0; i < elems.length; i++) {
+			this.add(elems[i]);
+		}
+	}
+
+	/**
+	 * Initializes this list by copying the elements from another list. The other
+	 * list is not modified.
+	 *
+	 * @param other the list to copy
+	 */
+	public STreapList(SList<E> other) {
+		this.root = null;
+		for (Iterator<E> iter = other.iterator(); iter.hasNext();) {
+			this.add(iter.next());
+		}
+	}
+
+	private static int size(Node<?> t) {
+		return t == null ? 0 : t.size;
+	}
+
+	/**
+	 * Applies a pending reversal of the subtree rooted at {@code t} to its
+	 * children.
+	 */
+	private static <E> void push(Node<E> t) {
+		if (t.reversed) {
+			Node<E> tmp = t.left;
+			t.left = t.right;
+			t.right = tmp;
+			if (t.left != null) {
+				t.left.reversed = !t.left.reversed;
+			}
+			if (t.right != null) {
+				t.right.reversed = !t.right.reversed;
+			}
+			t.reversed = false;
+		}
+	}
+
+	private static <E> Node<E> update(Node<E> t) {
+		t.size = 1 + size(t.left) + size(t.right);
+		return t;
+	}
+
+	/**
+	 * Returns the root of the tree holding the elements of {@code a} followed by
+	 * the elements of {@code b}.
+	 */
+	private static <E> Node<E> merge(Node<E> a, Node<E> b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			push(a);
+			a.right = merge(a.right, b);
+			return update(a);
+		}
+		push(b);
+		b.left = merge(a, b.left);
+		return update(b);
+	}
+
+	/**
+	 * Splits the tree rooted at {@code t} into a tree holding its first {@code k}
+	 * elements, stored in {@code out[0]}, and a tree holding the rest, stored in
+	 * {@code out[1]}.
+	 */
+	private static <E> void split(Node<E> t, int k, Node<E>[] out) {
+		if (t == null) {
+			out[0] = null;
+			out[1] = null;
+			return;
+		}
+		push(t);
+		if (size(t.left) < k) {
+			split(t.right, k - size(t.left) - 1, out);
+			t.right = out[0];
+			out[0] = update(t);
+		} else {
+			split(t.left, k, out);
+			t.left = out[1];
+			out[1] = update(t);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> Node<E>[] pair() {
+		return (Node<E>[]) new Node<?>[2];
+	}
+
+	/**
+	 * Get the number of elements in the list.
+	 *
+	 * @return the number of elements in the list.
+	 */
+	@Override
+	public int size() {
+		return size(this.root);
+	}
+
+	/**
+	 * Adds the given element to the end of the list.
+	 *
+	 * @param elem the element to add
+	 */
+	@Override
+	public void add(E elem) {
+		this.root = merge(this.root, new Node<>(elem));
+	}
+
+	/**
+	 * Validates the specified index.
+	 *
+	 * @param index an index
+	 * @throws IndexOutOfBoundsException if
+	 *                                   {@code index < 0 || index >= this.size()}
+	 */
+	private void validate(int index) {
+		if (index < 0 || index >= this.size()) {
+			throw new IndexOutOfBoundsException("index out of bounds: " + index);
+		}
+	}
+
+	/**
+	 * Returns the node at the specified index. Assumes that the index is valid for
+	 * this list. Pending reversals are taken into account on the way down without
+	 * being pushed, so the tree is not modified.
+	 *
+	 * @param index a valid index for this list
+	 * @return the node at the specified index
+	 */
+	private Node<E> moveTo(int index) {
+		Node<E> t = this.root;
+		boolean reversed = false;
+		while (true) {
+			reversed ^= t.reversed;
+			Node<E> first = reversed ? t.right : t.left;
+			int s = size(first);
+			if (index < s) {
+				t = first;
+			} else if (index == s) {
+				return t;
+			} else {
+				index -= s + 1;
+				t = reversed ? t.left : t.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the element at the specified position in the list.
+	 *
+	 * @param index index of the element to return
+	 * @return the element at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@Override
+	public E get(int index) {
+		this.validate(index);
+		return this.moveTo(index).elem;
+	}
+
+	/**
+	 * Sets the element at the specified position in the list.
+	 *
+	 * @param index index of the element to set
+	 * @param elem  element to be stored at the specified position
+	 * @return the element previously at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@Override
+	public E set(int index, E elem) {
+		this.validate(index);
+		Node<E> n = this.moveTo(index);
+		E old = n.elem;
+		n.elem = elem;
+		return old;
+	}
+
+	/**
+	 * Inserts an element at the specified index of this list. Shifts the element
+	 * currently at that position (if any) and any subsequent elements to the right.
+	 *
+	 * @param index the index at which to insert the element
+	 * @param elem  the element to be inserted
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index > size())}
+	 */
+	@Override
+	public void add(int index, E elem) {
+		if (index < 0 || index > this.size()) {
+			throw new IndexOutOfBoundsException("index out of bounds: " + index);
+		}
+		Node<E>[] p = pair();
+		split(this.root, index, p);
+		this.root = merge(merge(p[0], new Node<>(elem)), p[1]);
+	}
+
+	/**
+	 * Removes the element at the specified index of this list, shifts any
+	 * subsequent elements to the left (subtracts one to their indices), and returns
+	 * a reference to the removed element.
+	 *
+	 * @param index the index of the element to remove
+	 * @return the removed element
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@Override
+	public E remove(int index) {
+		this.validate(index);
+		Node<E>[] p = pair();
+		split(this.root, index, p);
+		Node<E> front = p[0];
+		split(p[1], 1, p);
+		this.root = merge(front, p[1]);
+		return p[0].elem;
+	}
+
+	/**
+	 * Moves all of the elements of {@code other} to the end of this list, leaving
+	 * {@code other} empty. Runs in expected O(log n) time.
+	 *
+	 * @param other the list whose elements are moved
+	 * @throws IllegalArgumentException if {@code other} is this list
+	 */
+	public void append(STreapList<E> other) {
+		if (other == this) {
+			throw new IllegalArgumentException();
+		}
+		this.root = merge(this.root, other.root);
+		other.root = null;
+	}
+
+	/**
+	 * Compares this list with another list for equality. This list is equal to
+	 * another {@code SList} if they have the same size and if each element in this
+	 * list is equal to the corresponding element in the other list.
+	 *
+	 * @param obj the object to compare with this list
+	 * @return true if this list is equal to the specified list
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SList<?>)) {
+			return false;
+		}
+		SList<?> other = (SList<?>) obj;
+		if (this.size() != other.size()) {
+			return false;
+		}
+		Iterator<?> i1 = this.iterator();
+		Iterator<?> i2 = other.iterator();
+		while (i1.hasNext()) {
+			if (!Objects.equals(i1.next(), i2.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash code for this list, computed from its elements in the same
+	 * way as {@code java.util.List.hashCode}.
+	 *
+	 * @return a hash code for this list
+	 */
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (E e : this) {
+			h = 31 * h + Objects.hashCode(e);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns a string representation of this list. The returned string has the
+	 * same format as the string returned by the Standard Library list types.
+	 *
+	 * @return a string representation of this list
+	 */
+	@Override
+	public String toString() {
+		StringJoiner j = new StringJoiner(", ", "[", "]");
+		for (E e : this) {
+			j.add(String.valueOf(e));
+		}
+		return j.toString();
+	}
+
+	/**
+	 * Returns an iterator over the elements in this list. The iterator visits the
+	 * elements of this list in the order that the elements appear in this list.
+	 * Iterating pushes pending reversals down the tree, which changes its shape
+	 * but not the order of the elements.
+	 *
+	 * @return an iterator over the elements in this list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new TreeIterator();
+	}
+
+	private class TreeIterator implements Iterator<E> {
+		/**
+		 * The nodes whose elements and right subtrees are still to be visited, with
+		 * the next node on top.
+		 */
+		private final ArrayDeque<Node<E>> stack = new ArrayDeque<>();
+
+		TreeIterator() {
+			this.descend(STreapList.this.root);
+		}
+
+		private void descend(Node<E> t) {
+			while (t != null) {
+				push(t);
+				this.stack.push(t);
+				t = t.left;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !this.stack.isEmpty();
+		}
+
+		@Override
+		public E next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Node<E> t = this.stack.pop();
+			this.descend(t.right);
+			return t.elem;
+		}
+
+	}
+
+	/**
+	 * Reverses the order of the elements in this list.
+	 *
+	 * <p>
+	 * Runs in O(1) time by flagging the root; the reversal is applied lazily.
+	 */
+	@Override
+	public void reverse() {
+		if (this.root != null) {
+			this.root.reversed = !this.root.reversed;
+		}
+	}
+
+	/**
+	 * Splits this list into two separate lists at the specified {@code index}.
+	 * After splitting, the returned list contains the elements from the start of
+	 * this list up to the element immediately before the specified {@code index}.
+	 * The elements from the specified {@code index} to the end of the original list
+	 * remain in this list.
+	 *
+	 * <p>
+	 * Runs in expected O(log n) time.
+	 *
+	 * @param index the index at which to split this list
+	 * @return a new list containing the elements from the start of this list up to
+	 *         the element immediately before the specified {@code index}
+	 * @throws IllegalArgumentException if {@code index} is less than zero or
+	 *                                  greater than the size of this list
+	 */
+	@Override
+	public STreapList<E> splitback(int index) {
+		if (index < 0 || index > this.size()) {
+			throw new IllegalArgumentException();
+		}
+		Node<E>[] p = pair();
+		split(this.root, index, p);
+		STreapList<E> beg = new STreapList<>();
+		beg.root = p[0];
+		this.root = p[1];
+		return beg;
+	}
+
+	/**
+	 * Rotates the elements of this list {@code m} positions to the right. This list
+	 * is transformed so that the original {@code m} elements at the end of the list
+	 * become the first {@code m} elements at the front of the list.
+	 *
+	 * <p>
+	 * Runs in expected O(log n) time: one split and one merge.
+	 *
+	 * @param m the number of positions to rotate the elements of the list
+	 * @throws IllegalArgumentException if m is less than zero
+	 * @throws IllegalArgumentException if m is greater than the size of this list
+	 */
+	@Override
+	public void rotate(int m) {
+		int n = this.size();
+		if (m < 0 || m > n) {
+			throw new IllegalArgumentException();
+		}
+		Node<E>[] p = pair();
+		split(this.root, n - m, p);
+		this.root = merge(p[1], p[0]);
+	}
+
+	/**
+	 * Times random {@code get}, {@code rotate}, {@code splitback} with
+	 * {@code append}, and {@code add(int, E)} with {@code remove(int)} on a list
+	 * of a million elements, and reports the microseconds per operation.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		int n = 1000000, ops = 100000;
+		Random rng = new Random(1);
+		STreapList<Integer> list = new STreapList<>();
+		for (int i = 0; i < n; i++) {
+			list.add(i);
+		}
+		int[] idx = new int[ops];
+		for (int k = 0; k < ops; k++) {
+			idx[k] = rng.nextInt(n);
+		}
+		for (int rep = 0; rep < 3; rep++) {
+			long sum = 0;
+			long start = System.nanoTime();
+			for (int k : idx) {
+				sum += list.get(k);
+			}
+			long get = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k : idx) {
+				list.rotate(k);
+			}
+			long rotate = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k : idx) {
+				STreapList<Integer> front = list.splitback(k);
+				front.append(list);
+				list = front;
+			}
+			long split = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k : idx) {
+				list.add(k, k);
+				list.remove(k);
+			}
+			long edit = System.nanoTime() - start;
+			System.out.printf("get %.2f us, rotate %.2f us, splitback + append %.2f us, add + remove %.2f us (%d)%n",
+					get / 1e3 / ops, rotate / 1e3 / ops, split / 1e3 / ops, edit / 1e3 / ops, sum);
+		}
+	}
+}
@@ -0,0 +1,617 @@
+package a6;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * An unrolled linked list implementation of a {@code SList}. Each node holds a
+ * block of up to {@code blockSize} consecutive elements in an array, so the
+ * list has one node object and one array per block instead of one node per
+ * element, and walking to an index visits {@code blockSize} times fewer nodes
+ * than {@code SLinkedList} while reading the elements of a block from
+ * contiguous memory.
+ *
+ * <p>
+ * Every node holds at least one element, and every node other than the first
+ * and the last is at least half full, so a walk visits at most about
+ * {@code 2 n / blockSize} nodes. {@code splitback} splits at most one node and
+ * relinks the rest, and {@code rotate} is a {@code splitback} followed by
+ * joining the two chains. Wherever a chain is cut or joined, the two nodes on
+ * either side are merged if their elements fit in one node, and otherwise
+ * share their elements evenly, so both operations take
+ * {@code O(n / blockSize + blockSize)} time instead of {@code O(n)} however
+ * often they are repeated.
+ *
+ * @param <E> the type of elements in this list
+ */
+public class SUnrolledLinkedList<E> implements SList<E> {
+
+	private static final int DEFAULT_BLOCK_SIZE = 64;
+
+	static class Node {
+		final Object[] elems;
+		int count;
+		Node next;
+
+		/**
+		 * Initializes an empty node that can hold {@code capacity} elements.
+		 *
+		 * @param capacity the number of elements the node can hold
+		 */
+		Node(int capacity) {
+			this.elems = new Object[capacity];
+			this.count = 0;
+			this.next = null;
+		}
+	}
+
+	/**
+	 * The number of elements a node can hold.
+	 */
+	private final int blockSize;
+
+	/**
+	 * The number of elements in the list.
+	 */
+	private int size;
+
+	/**
+	 * The first node of the list; will be <code>null</code> for an empty list.
+	 */
+	private Node head;
+
+	/**
+	 * The last node of the list; will be <code>null</code> for an empty list.
+	 */
+	private Node tail;
+
+	/**
+	 * Initializes an empty list with the default block size.
+	 */
+	public SUnrolledLinkedList() {
+		this.blockSize = DEFAULT_BLOCK_SIZE;
+		this.size = 0;
+		this.head = null;
+		this.tail = null;
+	}
+
+	/**
+	 * Initializes an empty list whose nodes hold up to {@code blockSize}
+	 * elements. Private so that {@code new SUnrolledLinkedList<Integer>(5)}
+	 * calls the varargs constructor, as it does for the other lists.
+	 */
+	private SUnrolledLinkedList(int blockSize) {
+		this.blockSize = blockSize;
+		this.size = 0;
+		this.head = null;
+		this.tail = null;
+	}
+
+	/**
+	 * Returns an empty list whose nodes hold up to {@code blockSize} elements.
+	 *
+	 * @param <E>       the type of elements in the list
+	 * @param blockSize the number of elements per node
+	 * @return an empty list
+	 * @throws IllegalArgumentException if {@code blockSize < 1}
+	 */
+	public static <E> SUnrolledLinkedList<E> withBlockSize(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		return new SUnrolledLinkedList<>(blockSize);
+	}
+
+	/**
+	 * Initializes this list to have the specified elements.
+	 *
+	 * @param elems a comma separated list of elements, or an array of elements
+	 */
+	@SafeVarargs
+	public SUnrolledLinkedList(E... elems) {
+		this();
+		for (int i = 0; i < elems.length; i++) {
+			this.add(elems[i]);
+		}
+	}
+
+	/**
+	 * Initializes this list by copying the elements from another list. The other
+	 * list is not modified.
+	 *
+	 * @param other the list to copy
+	 */
+	public SUnrolledLinkedList(SList<E> other) {
+		this();
+		for (Iterator<E> iter = other.iterator(); iter.hasNext();) {
+			this.add(iter.next());
+		}
+	}
+
+	/**
+	 * Get the number of elements in the list.
+	 *
+	 * @return the number of elements in the list.
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds the given element to the end of the list.
+	 *
+	 * @param elem the element to add
+	 */
+	@Override
+	public void add(E elem) {
+		if (this.tail == null || this.tail.count == this.blockSize) {
+			Node n = new Node(this.blockSize);
+			if (this.tail == null) {
+				this.head = n;
+			} else {
+				this.tail.next = n;
+			}
+			this.tail = n;
+		}
+		this.tail.elems[this.tail.count++] = elem;
+		this.size++;
+	}
+
+	/**
+	 * Validates the specified index.
+	 *
+	 * @param index an index
+	 * @throws IndexOutOfBoundsException if
+	 *                                   {@code index < 0 || index >= this.size()}
+	 */
+	private void validate(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index out of bounds: " + index);
+		}
+	}
+
+	/**
+	 * Restores the invariant between {@code n} and the node after it, which both
+	 * belong to this list. The two nodes are merged if their elements fit in one
+	 * node; otherwise, if either is less than half full, their elements are
+	 * shared evenly between them.
+	 *
+	 * @param n a node of this list
+	 */
+	private void join(Node n) {
+		Node m = n.next;
+		if (m == null) {
+			return;
+		}
+		int total = n.count + m.count;
+		if (total <= this.blockSize) {
+			System.arraycopy(m.elems, 0, n.elems, n.count, m.count);
+			n.count = total;
+			n.next = m.next;
+			if (this.tail == m) {
+				this.tail = n;
+			}
+		} else if (Math.min(n.count, m.count) < this.blockSize / 2) {
+			int want = total / 2;
+			if (n.count < want) {
+				// move the first elements of m to the end of n
+				int d = want - n.count;
+				System.arraycopy(m.elems, 0, n.elems, n.count, d);
+				System.arraycopy(m.elems, d, m.elems, 0, m.count - d);
+				Arrays.fill(m.elems, m.count - d, m.count, null);
+			} else {
+				// move the last elements of n to the front of m
+				int d = n.count - want;
+				System.arraycopy(m.elems, 0, m.elems, d, m.count);
+				System.arraycopy(n.elems, want, m.elems, 0, d);
+				Arrays.fill(n.elems, want, n.count, null);
+			}
+			n.count = want;
+			m.count = total - want;
+		}
+	}
+
+	/**
+	 * Returns the element at the specified position in the list.
+	 *
+	 * @param index index of the element to return
+	 * @return the element at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int index) {
+		this.validate(index);
+		Node n = this.tail;
+		int i = index - (this.size - n.count);
+		if (i < 0) {
+			n = this.head;
+			i = index;
+			while (i >= n.count) {
+				i -= n.count;
+				n = n.next;
+			}
+		}
+		return (E) n.elems[i];
+	}
+
+	/**
+	 * Sets the element at the specified position in the list.
+	 *
+	 * @param index index of the element to set
+	 * @param elem  element to be stored at the specified position
+	 * @return the element previously at the specified position
+	 * @throws IndexOutOfBoundsException if the index is out of the range
+	 *                                   {@code (index < 0 || index >= size())}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public E set(int index, E elem) {
+		this.validate(index);
+		Node n = this.tail;
+		int i = index - (this.size - n.count);
+		if (i < 0) {
+			n = this.head;
+			i = index;
+			while (i >= n.count) {
+				i -= n.count;
+				n = n.next;
+			}
+		}
+		E old = (E) n.elems[i];
+		n.elems[i] = elem;
+		return old;
+	}
+
+	/**
+	 * Adds an element to the front of this list. Shifts the elements of the first
+	 * node if it has room, and adds a new node otherwise.
+	 *
+	 * @param elem the element to add
+	 */
+	public void addFront(E elem) {
+		if (this.head == null || this.head.count == this.blockSize) {
+			Node n = new Node(this.blockSize);
+			n.next = this.head;
+			this.head = n;
+			if (this.tail == null) {
+				this.tail = n;
+			}
+		}
+		Node h = this.head;
+		System.arraycopy(h.elems, 0, h.elems, 1, h.count);
+		h.elems[0] = elem;
+		h.count++;
+		this.size++;
+	}
+
+	/**
+	 * Removes the first element of this list and returns the element. If the
+	 * first node falls below half full, it is merged with the next node or takes
+	 * elements from it.
+	 *
+	 * @return the removed element
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E removeFront() {
+		if (this.size == 0) {
+			throw new NoSuchElementException("list is empty");
+		}
+		Node h = this.head;
+		E e = (E) h.elems[0];
+		h.count--;
+		System.arraycopy(h.elems, 1, h.elems, 0, h.count);
+		h.elems[h.count] = null;
+		if (h.count == 0) {
+			this.head = h.next;
+			if (this.head == null) {
+				this.tail = null;
+			}
+		} else if (h.count < this.blockSize / 2) {
+			this.join(h);
+		}
+		this.size--;
+		return e;
+	}
+
+	/**
+	 * Compares this list with another list for equality. This list is equal to
+	 * another {@code SList} if they have the same size and if each element in this
+	 * list is equal to the corresponding element in the other list.
+	 *
+	 * @param obj the object to compare with this list
+	 * @return true if this list is equal to the specified list
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SList<?>)) {
+			return false;
+		}
+		SList<?> other = (SList<?>) obj;
+		if (this.size() != other.size()) {
+			return false;
+		}
+		Iterator<?> i1 = this.iterator();
+		Iterator<?> i2 = other.iterator();
+		while (i1.hasNext()) {
+			if (!Objects.equals(i1.next(), i2.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash code for this list, computed from its elements in the same
+	 * way as {@code java.util.List.hashCode}.
+	 *
+	 * @return a hash code for this list
+	 */
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (E e : this) {
+			h = 31 * h + Objects.hashCode(e);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns a string representation of this list. The returned string has the
+	 * same format as the string returned by the Standard Library list types.
+	 *
+	 * @return a string representation of this list
+	 */
+	@Override
+	public String toString() {
+		StringJoiner j = new StringJoiner(", ", "[", "]");
+		for (Node n = this.head; n != null; n = n.next) {
+			for (int i = 0; i < n.count; i++) {
+				j.add(String.valueOf(n.elems[i]));
+			}
+		}
+		return j.toString();
+	}
+
+	/**
+	 * Returns an iterator over the elements in this list. The iterator visits the
+	 * elements of this list in the order that the elements appear in this list.
+	 *
+	 * @return an iterator over the elements in this list
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new BlockIterator();
+	}
+
+	private class BlockIterator implements Iterator<E> {
+		/**
+		 * Node holding the element to be returned by the next call to next, or
+		 * {@code null} at the end of the list.
+		 */
+		private Node node;
+
+		/**
+		 * Index in {@code node} of the element to be returned by the next call to
+		 * next.
+		 */
+		private int i;
+
+		BlockIterator() {
+			this.node = SUnrolledLinkedList.this.head;
+			this.i = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.node != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			E e = (E) this.node.elems[this.i++];
+			if (this.i == this.node.count) {
+				this.node = this.node.next;
+				this.i = 0;
+			}
+			return e;
+		}
+
+	}
+
+	/**
+	 * Reverses the order of the elements in this list by reversing the order of
+	 * the nodes and the order of the elements within each node.
+	 *
+	 * <p>
+	 * Runs in O(n) time taking only a single pass of the list.
+	 */
+	@Override
+	public void reverse() {
+		Node prev = null;
+		Node n = this.head;
+		while (n != null) {
+			Object[] elems = n.elems;
+			for (int i = 0, j = n.count - 1; i < j; i++, j--) {
+				Object tmp = elems[i];
+				elems[i] = elems[j];
+				elems[j] = tmp;
+			}
+			Node next = n.next;
+			n.next = prev;
+			prev = n;
+			n = next;
+		}
+		this.tail = this.head;
+		this.head = prev;
+	}
+
+	/**
+	 * Splits this list into two separate lists at the specified {@code index}.
+	 * After splitting, the returned list contains the elements from the start of
+	 * this list up to the element immediately before the specified {@code index}.
+	 * The elements from the specified {@code index} to the end of the original list
+	 * remain in this list.
+	 *
+	 * <p>
+	 * Walks to the node holding {@code index} and relinks the nodes on either side
+	 * of it. If {@code index} falls inside a node, the elements of that node from
+	 * {@code index} on are moved to a new node. The last node of each list is then
+	 * joined with its neighbour, so this runs in
+	 * {@code O(n / blockSize + blockSize)} time.
+	 *
+	 * @param index the index at which to split this list
+	 * @return a new list containing the elements from the start of this list up to
+	 *         the element immediately before the specified {@code index}
+	 * @throws IllegalArgumentException if {@code index} is less than zero or
+	 *                                  greater than the size of this list
+	 */
+	@Override
+	public SUnrolledLinkedList<E> splitback(int index) {
+		if (index < 0 || index > this.size) {
+			throw new IllegalArgumentException();
+		}
+		SUnrolledLinkedList<E> beg = new SUnrolledLinkedList<>(this.blockSize);
+		if (index == 0) {
+			return beg;
+		}
+		if (index == this.size) {
+			beg.head = this.head;
+			beg.tail = this.tail;
+			beg.size = this.size;
+			this.head = null;
+			this.tail = null;
+			this.size = 0;
+			return beg;
+		}
+		// find the node n holding index and the two nodes before it
+		Node before = null;
+		Node prev = null;
+		Node n = this.head;
+		int k = index;
+		while (k >= n.count) {
+			k -= n.count;
+			before = prev;
+			prev = n;
+			n = n.next;
+		}
+		if (k > 0) {
+			// move elements k.. of n into a new node after n
+			Node rest = new Node(this.blockSize);
+			rest.count = n.count - k;
+			System.arraycopy(n.elems, k, rest.elems, 0, rest.count);
+			Arrays.fill(n.elems, k, n.count, null);
+			n.count = k;
+			rest.next = n.next;
+			n.next = rest;
+			if (this.tail == n) {
+				this.tail = rest;
+			}
+			before = prev;
+			prev = n;
+			n = rest;
+		}
+		beg.head = this.head;
+		beg.tail = prev;
+		beg.size = index;
+		prev.next = null;
+		this.head = n;
+		this.size -= index;
+		if (before != null) {
+			beg.join(before);
+		}
+		this.join(n);
+		return beg;
+	}
+
+	/**
+	 * Rotates the elements of this list {@code m} positions to the right. This list
+	 * is transformed so that the original {@code m} elements at the end of the list
+	 * become the first {@code m} elements at the front of the list.
+	 *
+	 * <p>
+	 * Splits off the first {@code size() - m} elements, links their nodes after
+	 * the last node and joins the two nodes that meet, so this runs in
+	 * {@code O(n / blockSize + blockSize)} time and moves the elements of at most
+	 * a few nodes.
+	 *
+	 * @param m the number of positions to rotate the elements of the list
+	 * @throws IllegalArgumentException if m is less than zero
+	 * @throws IllegalArgumentException if m is greater than the size of this list
+	 */
+	@Override
+	public void rotate(int m) {
+		if (m < 0 || m > this.size) {
+			throw new IllegalArgumentException();
+		}
+		if (m == 0 || m == this.size) {
+			return;
+		}
+		SUnrolledLinkedList<E> front = this.splitback(this.size - m);
+		Node last = this.tail;
+		last.next = front.head;
+		this.tail = front.tail;
+		this.size += front.size;
+		this.join(last);
+	}
+
+	/**
+	 * Times {@code get} at random indexes and {@code rotate} by random amounts on
+	 * a {@code SLinkedList} and on a {@code SUnrolledLinkedList} of 100000
+	 * elements, and reports the microseconds per operation.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		int n = 100000, ops = 2000;
+		Random rng = new Random(1);
+		SLinkedList<Integer> linked = new SLinkedList<>();
+		SUnrolledLinkedList<Integer> unrolled = new SUnrolledLinkedList<>();
+		for (int i = 0; i < n; i++) {
+			linked.add(i);
+			unrolled.add(i);
+		}
+		int[] idx = new int[ops];
+		for (int k = 0; k < ops; k++) {
+			idx[k] = rng.nextInt(n);
+		}
+		for (int rep = 0; rep < 3; rep++) {
+			long sum = 0;
+			long start = System.nanoTime();
+			for (int k : idx) {
+				sum += linked.get(k);
+			}
+			long linkedGet = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k : idx) {
+				sum -= unrolled.get(k);
+			}
+			long unrolledGet = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int k : idx) {
+				unrolled.rotate(k);
+			}
+			long unrolledRotate = System.nanoTime() - start;
+			System.out.printf("get: linked %.2f us, unrolled %.2f us; unrolled rotate %.2f us%s%n",
+					linkedGet / 1e3 / ops, unrolledGet / 1e3 / ops, unrolledRotate / 1e3 / ops,
+					sum == 0 ? "" : "  results differ");
+			for (int k : idx) {
+				unrolled.rotate(n - k);
+			}
+		}
+	}
+}
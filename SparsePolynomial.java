@@ -0,0 +1,512 @@
+package a4;
+
+import java.util.Arrays;
+
+/**
+ * An immutable real valued univariate polynomial that stores only its non-zero
+ * terms. The exponents are kept in increasing order in an {@code int} array,
+ * with the matching coefficients in a {@code double} array.
+ *
+ * <p>
+ * A sparse polynomial such as {@code x**1000000 + 1} needs two terms of storage
+ * instead of a million coefficients, and evaluation, differentiation and
+ * integration run in time proportional to the number of terms (times the
+ * logarithm of the gaps between exponents) rather than the degree.
+ *
+ * <p>
+ * Unlike {@code Polynomial}, the zero polynomial has no terms. Its degree is
+ * reported as zero to match {@code Polynomial}.
+ *
+ */
+public final class SparsePolynomial implements PolynomialFunction {
+
+	private static final int[] NO_EXPS = new int[0];
+	private static final double[] NO_COEFFS = new double[0];
+
+	private final int[] e; // strictly increasing
+	private final double[] c; // no zeros, same length as e
+
+	/**
+	 * Initializes this polynomial to have the specified terms. Term {@code k} is
+	 * {@code coefficients[k]} times x raised to the power {@code exponents[k]}.
+	 * The terms may be in any order; terms with equal exponents are added
+	 * together, and terms whose coefficients are zero are discarded.
+	 *
+	 * @param exponents    the exponents of the terms
+	 * @param coefficients the coefficients of the terms
+	 * @throws IllegalArgumentException if the arrays have different lengths or an
+	 *                                  exponent is negative
+	 */
+	public SparsePolynomial(int[] exponents, double[] coefficients) {
+		int n = exponents.length;
+		if (coefficients.length != n) {
+			throw new IllegalArgumentException();
+		}
+		long[] keys = new long[n];
+		for (int k = 0; k < n; k++) {
+			if (exponents[k] < 0) {
+				throw new IllegalArgumentException();
+			}
+			keys[k] = (long) exponents[k] << 32 | k;
+		}
+		Arrays.sort(keys);
+		int[] es = new int[n];
+		double[] cs = new double[n];
+		int t = 0;
+		for (int k = 0; k < n;) {
+			int exp = (int) (keys[k] >>> 32);
+			double sum = 0;
+			for (; k < n && (int) (keys[k] >>> 32) == exp; k++) {
+				sum += coefficients[(int) keys[k]];
+			}
+			if (sum != 0) {
+				es[t] = exp;
+				cs[t] = sum;
+				t++;
+			}
+		}
+		this.e = t == n ? es : Arrays.copyOf(es, t);
+		this.c = t == n ? cs : Arrays.copyOf(cs, t);
+	}
+
+	/**
+	 * Initializes this polynomial to use the specified arrays, which must already
+	 * satisfy the class invariants, without copying them.
+	 */
+	private SparsePolynomial(int[] e, double[] c, int t) {
+		this.e = t == e.length ? e : Arrays.copyOf(e, t);
+		this.c = t == c.length ? c : Arrays.copyOf(c, t);
+	}
+
+	/**
+	 * Returns the zero polynomial, which has no terms.
+	 *
+	 * @return the zero polynomial
+	 */
+	public static SparsePolynomial zero() {
+		return new SparsePolynomial(NO_EXPS, NO_COEFFS, 0);
+	}
+
+	/**
+	 * Returns a sparse polynomial equal to the specified dense polynomial.
+	 *
+	 * @param p a dense polynomial
+	 * @return a sparse polynomial equal to {@code p}
+	 */
+	public static SparsePolynomial fromDense(Polynomial p) {
+		double[] a = p.coeffs();
+		int n = p.degree() + 1;
+		int t = 0;
+		for (int i = 0; i < n; i++) {
+			if (a[i] != 0) {
+				t++;
+			}
+		}
+		int[] es = new int[t];
+		double[] cs = new double[t];
+		t = 0;
+		for (int i = 0; i < n; i++) {
+			if (a[i] != 0) {
+				es[t] = i;
+				cs[t] = a[i];
+				t++;
+			}
+		}
+		return new SparsePolynomial(es, cs, t);
+	}
+
+	/**
+	 * Returns a dense polynomial equal to this polynomial.
+	 *
+	 * @return a dense polynomial equal to this polynomial
+	 */
+	public Polynomial toDense() {
+		double[] a = new double[this.degree() + 1];
+		for (int k = 0; k < e.length; k++) {
+			a[e[k]] = c[k];
+		}
+		return new Polynomial(a);
+	}
+
+	/**
+	 * Returns {@code true} if a polynomial of the specified degree with the
+	 * specified number of non-zero terms needs less memory in the dense
+	 * representation (8 bytes per coefficient) than in the sparse representation
+	 * (12 bytes per term).
+	 *
+	 * @param degree the degree of the polynomial
+	 * @param terms  the number of non-zero terms of the polynomial
+	 * @return {@code true} if the dense representation is cheaper
+	 */
+	public static boolean denseIsCheaper(int degree, int terms) {
+		return 8L * (degree + 1) <= 12L * terms;
+	}
+
+	/**
+	 * Returns {@code p} itself if the dense representation is the cheaper one for
+	 * {@code p}, or a sparse polynomial equal to {@code p} otherwise.
+	 *
+	 * @param p a dense polynomial
+	 * @return {@code p} or a sparse polynomial equal to {@code p}
+	 */
+	public static PolynomialFunction compact(Polynomial p) {
+		SparsePolynomial s = fromDense(p);
+		return denseIsCheaper(p.degree(), s.terms()) ? p : s;
+	}
+
+	/**
+	 * Returns this polynomial if the sparse representation is the cheaper one for
+	 * it, or a dense polynomial equal to this polynomial otherwise.
+	 *
+	 * @return this polynomial or a dense polynomial equal to it
+	 */
+	public PolynomialFunction compact() {
+		return denseIsCheaper(this.degree(), this.terms()) ? this.toDense() : this;
+	}
+
+	/**
+	 * Returns the degree of this polynomial.
+	 *
+	 * @return the degree of this polynomial
+	 */
+	@Override
+	public int degree() {
+		return e.length == 0 ? 0 : e[e.length - 1];
+	}
+
+	/**
+	 * Returns the number of non-zero terms of this polynomial.
+	 *
+	 * @return the number of non-zero terms of this polynomial
+	 */
+	public int terms() {
+		return e.length;
+	}
+
+	/**
+	 * Returns the exponent of term {@code k}, where terms are numbered in
+	 * increasing order of exponent.
+	 *
+	 * @param k the index of a term
+	 * @return the exponent of term {@code k}
+	 * @throws IllegalArgumentException if {@code k} is not a valid term index
+	 */
+	public int exponentAt(int k) {
+		if (k < 0 || k >= e.length) {
+			throw new IllegalArgumentException();
+		}
+		return e[k];
+	}
+
+	/**
+	 * Returns the coefficient of term {@code k}, where terms are numbered in
+	 * increasing order of exponent.
+	 *
+	 * @param k the index of a term
+	 * @return the coefficient of term {@code k}
+	 * @throws IllegalArgumentException if {@code k} is not a valid term index
+	 */
+	public double coeffAt(int k) {
+		if (k < 0 || k >= c.length) {
+			throw new IllegalArgumentException();
+		}
+		return c[k];
+	}
+
+	/**
+	 * Returns the coefficient for the term x raised to the power {@code i}, which
+	 * is zero if this polynomial has no such term.
+	 *
+	 * @param i an exponent
+	 * @return the coefficient for the term x raised to the power {@code i}
+	 */
+	public double coeffOf(int i) {
+		int k = Arrays.binarySearch(e, i);
+		return k < 0 ? 0 : c[k];
+	}
+
+	/**
+	 * Evaluates this polynomial at the specified {@code x} value. Horner's method
+	 * is applied over the terms, raising {@code x} to the power of each gap
+	 * between consecutive exponents by repeated squaring.
+	 *
+	 * @param x the value to evaluate this polynomial at
+	 * @return the value of {@code f(x)} where {@code f} is the function
+	 *         corresponding to this polynomial
+	 */
+	@Override
+	public double at(double x) {
+		int t = e.length;
+		if (t == 0) {
+			return 0;
+		}
+		double sum = c[t - 1];
+		for (int k = t - 2; k >= 0; k--) {
+			sum = sum * pow(x, e[k + 1] - e[k]) + c[k];
+		}
+		return sum * pow(x, e[0]);
+	}
+
+	/**
+	 * Returns {@code x} raised to the power {@code n >= 0} by repeated squaring.
+	 */
+	static double pow(double x, int n) {
+		double r = 1;
+		while (n > 0) {
+			if ((n & 1) != 0) {
+				r *= x;
+			}
+			n >>>= 1;
+			if (n > 0) {
+				x *= x;
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Returns the derivative of this polynomial.
+	 *
+	 * @return the derivative of this polynomial
+	 */
+	public SparsePolynomial derivative() {
+		int from = e.length > 0 && e[0] == 0 ? 1 : 0;
+		int t = e.length - from;
+		int[] es = new int[t];
+		double[] cs = new double[t];
+		for (int k = 0; k < t; k++) {
+			es[k] = e[from + k] - 1;
+			cs[k] = c[from + k] * e[from + k];
+		}
+		return new SparsePolynomial(es, cs, t);
+	}
+
+	/**
+	 * Returns the antiderivative of this polynomial whose constant term is zero.
+	 *
+	 * @return the antiderivative of this polynomial with zero constant term
+	 * @throws ArithmeticException if the degree of the antiderivative is too
+	 *                             large to represent
+	 */
+	public SparsePolynomial antiderivative() {
+		int t = e.length;
+		int[] es = new int[t];
+		double[] cs = new double[t];
+		for (int k = 0; k < t; k++) {
+			es[k] = Math.addExact(e[k], 1);
+			cs[k] = c[k] / es[k];
+		}
+		return new SparsePolynomial(es, cs, t);
+	}
+
+	/**
+	 * Returns the definite integral of this polynomial evaluated from {@code x1} to
+	 * {@code x2}.
+	 *
+	 * <p>
+	 * If {@code x1 > x2} is {@code true}, then the values of {@code x1} and
+	 * {@code x2} are swapped before computing the definite integral.
+	 *
+	 * @param x1 a limit of the definite integral
+	 * @param x2 the other limit of the definite integral
+	 * @return the definite integral evaluated at the specified limits
+	 */
+	@Override
+	public double integrate(double x1, double x2) {
+		if (x1 > x2) {
+			double temp = x2;
+			x2 = x1;
+			x1 = temp;
+		}
+		return this.antiderivativeAt(x2) - this.antiderivativeAt(x1);
+	}
+
+	/**
+	 * Evaluates the antiderivative with zero constant term at {@code x} without
+	 * creating it.
+	 */
+	private double antiderivativeAt(double x) {
+		int t = e.length;
+		if (t == 0) {
+			return 0;
+		}
+		double sum = c[t - 1] / (e[t - 1] + 1.0);
+		for (int k = t - 2; k >= 0; k--) {
+			sum = sum * pow(x, e[k + 1] - e[k]) + c[k] / (e[k] + 1.0);
+		}
+		return sum * pow(x, e[0]) * x;
+	}
+
+	/**
+	 * Returns the sum of this polynomial and {@code other}, computed by merging
+	 * the two sorted lists of terms.
+	 *
+	 * @param other the polynomial to add to this polynomial
+	 * @return the sum of this polynomial and {@code other}
+	 */
+	public SparsePolynomial add(SparsePolynomial other) {
+		int n1 = this.e.length, n2 = other.e.length;
+		int[] es = new int[n1 + n2];
+		double[] cs = new double[n1 + n2];
+		int i = 0, j = 0, t = 0;
+		while (i < n1 || j < n2) {
+			int exp;
+			double sum;
+			if (j == n2 || (i < n1 && this.e[i] < other.e[j])) {
+				exp = this.e[i];
+				sum = this.c[i++];
+			} else if (i == n1 || other.e[j] < this.e[i]) {
+				exp = other.e[j];
+				sum = other.c[j++];
+			} else {
+				exp = this.e[i];
+				sum = this.c[i++] + other.c[j++];
+			}
+			if (sum != 0) {
+				es[t] = exp;
+				cs[t] = sum;
+				t++;
+			}
+		}
+		return new SparsePolynomial(es, cs, t);
+	}
+
+	/**
+	 * Returns the product of this polynomial and {@code other}.
+	 *
+	 * <p>
+	 * Each term of the polynomial with fewer terms defines a sorted stream of
+	 * products with the terms of the other polynomial, and the streams are merged
+	 * with a binary heap so that the products are generated in increasing order of
+	 * exponent. This takes {@code O(t1 t2 log(min(t1, t2)))} time and only
+	 * {@code O(min(t1, t2))} extra space besides the result.
+	 *
+	 * @param other the polynomial to multiply this polynomial by
+	 * @return the product of this polynomial and {@code other}
+	 * @throws ArithmeticException if the degree of the product is too large to
+	 *                             represent
+	 */
+	public SparsePolynomial multiply(SparsePolynomial other) {
+		SparsePolynomial f = this.e.length <= other.e.length ? this : other;
+		SparsePolynomial g = f == this ? other : this;
+		int nf = f.e.length, ng = g.e.length;
+		if (nf == 0) {
+			return zero();
+		}
+		Math.addExact(f.e[nf - 1], g.e[ng - 1]);
+
+		// heap of the rows of the product, ordered by the exponent of the next
+		// product in each row; row i next multiplies f term i by g term col[i]
+		int[] heap = new int[nf];
+		int[] col = new int[nf];
+		int size = 0;
+		for (int i = 0; i < nf; i++) {
+			heap[size++] = i; // exponents increase with i, so this is a heap
+		}
+
+		int cap = Math.max(16, nf + ng);
+		int[] es = new int[cap];
+		double[] cs = new double[cap];
+		int t = 0;
+		while (size > 0) {
+			int row = heap[0];
+			int exp = f.e[row] + g.e[col[row]];
+			double sum = 0;
+			while (size > 0 && f.e[heap[0]] + g.e[col[heap[0]]] == exp) {
+				row = heap[0];
+				sum += f.c[row] * g.c[col[row]];
+				if (++col[row] == ng) {
+					heap[0] = heap[--size];
+				}
+				siftDown(heap, size, col, f.e, g.e);
+			}
+			if (sum != 0) {
+				if (t == cap) {
+					cap *= 2;
+					es = Arrays.copyOf(es, cap);
+					cs = Arrays.copyOf(cs, cap);
+				}
+				es[t] = exp;
+				cs[t] = sum;
+				t++;
+			}
+		}
+		return new SparsePolynomial(es, cs, t);
+	}
+
+	private static void siftDown(int[] heap, int size, int[] col, int[] fe, int[] ge) {
+		int i = 0;
+		while (true) {
+			int l = 2 * i + 1;
+			if (l >= size) {
+				return;
+			}
+			int r = l + 1;
+			int m = r < size && fe[heap[r]] + ge[col[heap[r]]] < fe[heap[l]] + ge[col[heap[l]]] ? r : l;
+			if (fe[heap[m]] + ge[col[heap[m]]] >= fe[heap[i]] + ge[col[heap[i]]]) {
+				return;
+			}
+			int tmp = heap[i];
+			heap[i] = heap[m];
+			heap[m] = tmp;
+			i = m;
+		}
+	}
+
+	/**
+	 * Returns a hash code for this polynomial. The hash code is computed using the
+	 * exponents and coefficients of this polynomial.
+	 *
+	 * @return a hash code for this polynomial
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(e) + Arrays.hashCode(c);
+	}
+
+	/**
+	 * Compares this polynomial to an object for equality. {@code obj} is equal to
+	 * this polynomial if and only if {@code obj} is a {@code SparsePolynomial}
+	 * with the same terms as this polynomial.
+	 *
+	 * @param obj an object to compare
+	 * @return {@code true} if {@code obj} is equal to this polynomial,
+	 *         {@code false} otherwise
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || this.getClass() != obj.getClass()) {
+			return false;
+		}
+		SparsePolynomial other = (SparsePolynomial) obj;
+		return Arrays.equals(this.e, other.e) && Arrays.equals(this.c, other.c);
+	}
+
+	/**
+	 * Returns a string representation of this polynomial in the same format as
+	 * {@code Polynomial.toString()}, omitting the terms whose coefficients are
+	 * zero. The zero polynomial is represented as {@code "0.0"}.
+	 *
+	 * @return a string representation of this polynomial
+	 */
+	@Override
+	public String toString() {
+		if (e.length == 0) {
+			return "0.0";
+		}
+		StringBuilder s = new StringBuilder();
+		for (int k = 0; k < e.length; k++) {
+			if (k > 0) {
+				s.append(" + ");
+			}
+			s.append(c[k]);
+			if (e[k] > 0) {
+				s.append(" x**").append(e[k]);
+			}
+		}
+		return s.toString();
+	}
+}